@@ -0,0 +1,27 @@
+#version 330
+
+// One unit quad, stretched, rotated and textured per instance
+layout (location=0) in vec2 corner;
+layout (location=1) in vec4 rect;       // left, top, width, height
+layout (location=2) in vec4 uvRect;     // u0, v0, u1, v1
+layout (location=3) in vec3 color;
+layout (location=4) in vec4 transform;  // rotation, center x, center y, z
+
+uniform mat4 mProjection;
+uniform mat4 mModel;
+
+out vec2 outTexCoord;
+out vec3 outColor;
+
+void main()
+{
+    vec2 position = rect.xy + corner * rect.zw;
+    vec2 offset = position - transform.yz;
+    float s = sin(transform.x);
+    float c = cos(transform.x);
+    position = transform.yz + vec2(c * offset.x - s * offset.y, s * offset.x + c * offset.y);
+
+    gl_Position = mProjection * mModel * vec4(position, transform.w, 1.0);
+    outTexCoord = mix(uvRect.xy, uvRect.zw, corner);
+    outColor = color;
+}
\ No newline at end of file
@@ -1,43 +1,60 @@
+import com.maze.GameClock;
+import com.maze.GameSession;
 import com.maze.GridSpace;
+import com.maze.HighScoreTable;
 import com.maze.Maze;
+import com.maze.MazePool;
 import edu.usu.graphics.*;
 import org.joml.Vector3f;
 
 import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import static org.lwjgl.glfw.GLFW.*;
 
 public class Game {
     private final Graphics2D graphics;
     private Maze maze;
+    private StaticLayer mazeLayer; // The walls, built once per game
+    private GameSession session;
+    private final GameClock clock = () -> glfwGetTime();
+    private MazePool mazePool;
     private int mazeSize = 10; // Default maze size
     private boolean hintEnabled = false;
     private boolean breadcrumbsEnabled = false;
     private boolean pathEnabled = false;
-    private List<GridSpace> shortestPath = null;
     private List<GridSpace> shortestPathFromPlayer = null; // Shortest path from player
     private GridSpace endSpace = null;
     private GridSpace startSpace = null;
-    private List<GridSpace> playerPath = new ArrayList<>();
-    private int score = 0;
-    private double startTime;
     private Font font;
     private Texture backgroundImage;
     private Rectangle backgroundRect = new Rectangle(-1.0f, -1.0f, 2.0f, 2.0f, -1);
-    private Texture endMarkerImage;
-    private Texture breadcrumbImage;
-    private Texture hintImage;
-    private Texture playerImage;
-    private List<HighScore> highScores = new ArrayList<>();
+    // The small sprites share one atlas texture so they draw together
+    private static final String END_MARKER_IMAGE = "resources/images/flag.jpg";
+    private static final String BREADCRUMB_IMAGE = "resources/images/dot.png";
+    private static final String HINT_IMAGE = "resources/images/hint.png";
+    private static final String PLAYER_IMAGE = "resources/images/player.png";
+    private TextureAtlas spriteAtlas;
+    private TextureAtlas.Region endMarkerImage;
+    private TextureAtlas.Region breadcrumbImage;
+    private TextureAtlas.Region hintImage;
+    private TextureAtlas.Region playerImage;
+
+    // Draw order within a frame comes from z, back to front.  The background is at -1,
+    // the walls and path lines at 0.
+    private static final float Z_BREADCRUMBS = 0.1f;
+    private static final float Z_MARKERS = 0.2f;
+    private static final float Z_PLAYER = 0.3f;
+    private static final float Z_TEXT = 0.5f;
+    private HighScoreTable highScores = new HighScoreTable();
     private boolean displayHighScores = false;
     private boolean displayCredits = false;
-    private double lastMoveTime = 0;
-    private static final double MOVE_COOLDOWN = 0.15;
+    private boolean displayStats = false;
 
     // Added for key debouncing for H and P
     private boolean hWasPressed = false;
     private boolean pWasPressed = false;
+    private boolean f12WasPressed = false;
 
     // Flags to track if movement keys are currently pressed
     private boolean isLeftKeyPressed = false;
@@ -51,46 +68,29 @@ public class Game {
 
     private GameState gameState = GameState.MENU;
 
-    private static class HighScore {
-        int score;
-        int mazeSize;
-
-        public HighScore(int score, int mazeSize) {
-            this.score = score;
-            this.mazeSize = mazeSize;
-        }
-
-        @Override
-        public String toString() {
-            return "Maze Size: " + mazeSize + "x" + mazeSize + ", Score: " + score;
-        }
-    }
-
     public Game(Graphics2D graphics) {
         this.graphics = graphics;
     }
 
     public void initialize() {
         backgroundImage = new Texture("resources/images/pooh.jpg");
-        endMarkerImage = new Texture("resources/images/flag.jpg");
-        breadcrumbImage = new Texture("resources/images/dot.png");
-        hintImage = new Texture("resources/images/hint.png");
-        playerImage = new Texture("resources/images/player.png");
+        spriteAtlas = new TextureAtlas(1024, 256, END_MARKER_IMAGE, BREADCRUMB_IMAGE, HINT_IMAGE, PLAYER_IMAGE);
+        endMarkerImage = spriteAtlas.get(END_MARKER_IMAGE);
+        breadcrumbImage = spriteAtlas.get(BREADCRUMB_IMAGE);
+        hintImage = spriteAtlas.get(HINT_IMAGE);
+        playerImage = spriteAtlas.get(PLAYER_IMAGE);
         font = new Font(Paths.get("resources", "fonts", "roboto.ttf").toString(), 32, false);
+        mazePool = new MazePool(.8f, new int[] { 5, 10, 15, 20 }, 2, 2);
         startNewGame(mazeSize); // Initialize with default size
     }
 
     private void startNewGame(int size) {
         mazeSize = size;
-        maze = new Maze(.8f, mazeSize);
-        startSpace = maze.getGridSpaces().get(0).get(0);
-        endSpace = maze.getGridSpaces().get(mazeSize - 1).get(mazeSize - 1);
-        maze.setPlayerPosition(0, 0);
-        playerPath.clear();
-        playerPath.add(startSpace);
-        score = 0;
-        startTime = glfwGetTime(); // Reset start time here
-        shortestPath = maze.findShortestPath(startSpace, endSpace);
+        maze = mazePool.take(mazeSize);
+        startSpace = maze.getGridSpace(0, 0);
+        endSpace = maze.getGridSpace(mazeSize - 1, mazeSize - 1);
+        session = new GameSession(maze, clock); // Puts the player at the start and starts the clock
+        buildMazeLayer();
         shortestPathFromPlayer = null;
         hintEnabled = false;
         breadcrumbsEnabled = false;
@@ -98,12 +98,39 @@ public class Game {
         gameState = GameState.PLAYING;
     }
 
+    // The walls never change during a game, so they are uploaded once here rather
+    // than submitted every frame
+    private void buildMazeLayer() {
+        if (mazeLayer != null) {
+            mazeLayer.cleanup();
+        }
+
+        graphics.beginStaticLayer();
+        Color wallColor = Color.PURPLE;
+        for (var row : maze.getGridSpaces()) {
+            for (var grid : row) {
+                if (grid.isWall("bottom")) {
+                    graphics.draw(grid.getBottomRect(), wallColor);
+                }
+                if (grid.isWall("top")) {
+                    graphics.draw(grid.getTopRect(), wallColor);
+                }
+                if (grid.isWall("left")) {
+                    graphics.draw(grid.getLeftRect(), wallColor);
+                }
+                if (grid.isWall("right")) {
+                    graphics.draw(grid.getRightRect(), wallColor);
+                }
+            }
+        }
+        mazeLayer = graphics.endStaticLayer();
+    }
+
     public void shutdown() {
+        mazeLayer.cleanup();
+        mazePool.close();
         backgroundImage.cleanup();
-        endMarkerImage.cleanup();
-        breadcrumbImage.cleanup();
-        hintImage.cleanup();
-        playerImage.cleanup();
+        spriteAtlas.cleanup();
     }
 
     public void run() {
@@ -128,6 +155,16 @@ public class Game {
             glfwSetWindowShouldClose(graphics.getWindow(), true);
         }
 
+        // Toggle the render stats overlay (F12) with debouncing
+        if (glfwGetKey(graphics.getWindow(), GLFW_KEY_F12) == GLFW_PRESS) {
+            if (!f12WasPressed) {
+                displayStats = !displayStats;
+                f12WasPressed = true;
+            }
+        } else {
+            f12WasPressed = false;
+        }
+
         if (gameState == GameState.PLAYING) {
             processGameInput(elapsedTime);
         } else if (gameState == GameState.MENU) {
@@ -165,8 +202,7 @@ public class Game {
     }
 
     private void processGameInput(double elapsedTime) {
-        double currentTime = glfwGetTime();
-        if (currentTime - lastMoveTime < MOVE_COOLDOWN) {
+        if (!session.canMove()) {
             return;
         }
 
@@ -222,22 +258,16 @@ public class Game {
 
 
         if (dx != 0 || dy != 0) {
-            if (maze.movePlayer(dx, dy)) {
-                GridSpace currentSpace = maze.getPlayerGridSpace();
-                if (!playerPath.contains(currentSpace)) {
-                    playerPath.add(currentSpace);
-                    score += maze.calculateMoveScore(currentSpace, shortestPath);
-                }
-                if (currentSpace == endSpace) {
-                    highScores.add(new HighScore(score, mazeSize));
-                    highScores.sort((h1, h2) -> h2.score - h1.score);
+            if (session.move(dx, dy)) {
+                if (session.isWon()) {
+                    highScores.add(session.getScore(), mazeSize);
                     gameState = GameState.MENU;
                 }
-                if (hintEnabled || pathEnabled) {
+                // The hint reads the goal field directly; only the full path needs rebuilding
+                if (pathEnabled) {
                     shortestPathFromPlayer = maze.findShortestPathFromPlayer();
                 }
             }
-            lastMoveTime = currentTime;
         }
 
         // Handle Hint Toggle (H key) with debouncing
@@ -246,10 +276,8 @@ public class Game {
                 hintEnabled = !hintEnabled;
                 if (hintEnabled) {
                     pathEnabled = false;
-                    shortestPathFromPlayer = maze.findShortestPathFromPlayer();
-                } else {
-                    shortestPathFromPlayer = null;
                 }
+                shortestPathFromPlayer = null;
                 hWasPressed = true;
             }
         } else {
@@ -314,6 +342,10 @@ public class Game {
             renderCredits();
         }
 
+        if (displayStats) {
+            graphics.drawTextByWidth(font, "Draw calls: " + graphics.getDrawCallCount(), -0.95f, -0.55f, 0.3f, Z_TEXT, Color.GREEN);
+        }
+
         graphics.end();
     }
 
@@ -348,7 +380,7 @@ public class Game {
         if (highScores.isEmpty()) {
             graphics.drawTextByWidth(font, "No scores yet!", centerX, startY, 0.8f, Color.WHITE);
         } else {
-            for (HighScore score : highScores) {
+            for (HighScoreTable.Entry score : highScores.getEntries()) {
                 graphics.drawTextByWidth(font, score.toString(), centerX, startY, 0.8f, Color.WHITE);
                 startY -= lineHeight;
                 if (startY < -0.9f) break;
@@ -375,25 +407,21 @@ public class Game {
     }
 
     private void renderGame() {
-        ArrayList<ArrayList<GridSpace>> gridsToRender = maze.getGridSpaces();
         float cellSize = maze.getCellSize();
         float wallThickness = maze.getWallThickness();
 
-        for (var row : gridsToRender) {
-            for (var grid : row) {
-                Color wallColor = Color.PURPLE;
-                graphics.draw(grid.getBottomRect(), wallColor);
-                graphics.draw(grid.getTopRect(), wallColor);
-                graphics.draw(grid.getLeftRect(), wallColor);
-                graphics.draw(grid.getRightRect(), wallColor);
-
-                if (breadcrumbsEnabled && playerPath.contains(grid)) {
-                    Rectangle breadcrumbRect = new Rectangle(
-                            grid.getPosition().item1() - cellSize / 4f,
-                            grid.getPosition().item2() - cellSize / 4f,
-                            cellSize / 2f, cellSize / 2f);
-                    graphics.draw(breadcrumbImage, breadcrumbRect, Color.WHITE);
-                }
+        graphics.draw(mazeLayer);
+
+        // Render Breadcrumbs, walking only the visited cells
+        if (breadcrumbsEnabled) {
+            BitSet visited = maze.getVisitedCells();
+            for (int cell = visited.nextSetBit(0); cell >= 0; cell = visited.nextSetBit(cell + 1)) {
+                GridSpace grid = maze.getGridSpace(cell);
+                Rectangle breadcrumbRect = new Rectangle(
+                        grid.getX() - cellSize / 4f,
+                        grid.getY() - cellSize / 4f,
+                        cellSize / 2f, cellSize / 2f, Z_BREADCRUMBS);
+                graphics.draw(breadcrumbImage, breadcrumbRect, Color.WHITE);
             }
         }
 
@@ -402,7 +430,7 @@ public class Game {
             Rectangle endMarkerRect = new Rectangle(
                     endSpace.getPosition().item1() - cellSize / 2f + wallThickness,
                     endSpace.getPosition().item2() - cellSize / 2f + wallThickness,
-                    cellSize - 2 * wallThickness, cellSize - 2 * wallThickness);
+                    cellSize - 2 * wallThickness, cellSize - 2 * wallThickness, Z_MARKERS);
             graphics.draw(endMarkerImage, endMarkerRect, Color.WHITE);
         }
 
@@ -412,7 +440,7 @@ public class Game {
             Rectangle playerRect = new Rectangle(
                     playerGridSpace.getPosition().item1() - cellSize / 2f + wallThickness,
                     playerGridSpace.getPosition().item2() - cellSize / 2f + wallThickness,
-                    cellSize - 2 * wallThickness, cellSize - 2 * wallThickness);
+                    cellSize - 2 * wallThickness, cellSize - 2 * wallThickness, Z_PLAYER);
             graphics.draw(playerImage, playerRect, Color.WHITE);
         }
 
@@ -433,20 +461,20 @@ public class Game {
         }
 
         // Render Hint
-        if (hintEnabled && !pathEnabled && shortestPathFromPlayer != null && shortestPathFromPlayer.size() > 1) {
-            GridSpace nextHintSpace = shortestPathFromPlayer.get(1); // Next step on shortest path
+        GridSpace nextHintSpace = hintEnabled && !pathEnabled ? maze.getHintGridSpace() : null; // Next step on shortest path
+        if (nextHintSpace != null) {
             Rectangle hintRect = new Rectangle(
                     nextHintSpace.getPosition().item1() - cellSize / 2.5f + wallThickness,
                     nextHintSpace.getPosition().item2() - cellSize / 2.5f + wallThickness,
                     cellSize / 1.25f - 2 * wallThickness,
-                    cellSize / 1.25f - 2 * wallThickness);
+                    cellSize / 1.25f - 2 * wallThickness, Z_MARKERS);
             graphics.draw(hintImage, hintRect, Color.WHITE);
         }
 
         // Display Score and Time
-        double elapsedTimeInSeconds = glfwGetTime() - startTime;
+        double elapsedTimeInSeconds = session.getElapsedSeconds();
         String timeString = String.format("%.0f", elapsedTimeInSeconds);
-        graphics.drawTextByWidth(font, "Time: " + timeString, 0.0f, 0.0f, 0.8f, Color.YELLOW); // Display time at center, larger, yellow
-        graphics.drawTextByWidth(font, "Score: " + score, -0.95f, 0.9f, 0.4f, Color.WHITE);
+        graphics.drawTextByWidth(font, "Time: " + timeString, 0.0f, 0.0f, 0.8f, Z_TEXT, Color.YELLOW); // Display time at center, larger, yellow
+        graphics.drawTextByWidth(font, "Score: " + session.getScore(), -0.95f, 0.9f, 0.4f, Z_TEXT, Color.WHITE);
     }
 }
\ No newline at end of file
@@ -0,0 +1,190 @@
+package com.maze;
+
+import java.util.Arrays;
+
+// A* with a Manhattan distance heuristic.  The open list is a binary heap of cells
+// keyed by f = g + h, breaking ties toward the larger g so the search dives toward
+// the goal.  Stale heap entries are skipped when popped rather than updated in place.
+// All arrays are reused between searches; the heap only grows, never shrinks.
+public final class AStarSolver implements MazeSolver {
+    private final WallGrid walls;
+    private final int[] g;          // Steps from the start, valid where seen == stamp
+    private final int[] parent;
+    private final int[] seen;
+    private final int[] closed;
+    private long[] heapKeys;
+    private int[] heapCells;
+    private int heapSize;
+    private int stamp = 0;
+    private long expanded = 0;
+    private long queries = 0;
+    private long nanos = 0;
+
+    public AStarSolver(WallGrid walls) {
+        int cellCount = walls.getCellCount();
+        this.walls = walls;
+        this.g = new int[cellCount];
+        this.parent = new int[cellCount];
+        this.seen = new int[cellCount];
+        this.closed = new int[cellCount];
+        this.heapKeys = new long[Math.min(cellCount, 1024)];
+        this.heapCells = new int[heapKeys.length];
+    }
+
+    @Override
+    public String getName() {
+        return "a-star";
+    }
+
+    @Override
+    public int findPath(int startCell, int endCell, int[] path) {
+        int steps = search(startCell, endCell);
+        if (steps < 0) {
+            return -1;
+        }
+        if (steps + 1 > path.length) {
+            throw new IllegalArgumentException("Path of " + (steps + 1) + " cells doesn't fit in " + path.length);
+        }
+        writePath(endCell, steps, path);
+        return steps + 1;
+    }
+
+    @Override
+    public int[] findPath(int startCell, int endCell) {
+        int steps = search(startCell, endCell);
+        if (steps < 0) {
+            return null;
+        }
+        int[] path = new int[steps + 1];
+        writePath(endCell, steps, path);
+        return path;
+    }
+
+    @Override
+    public int distance(int startCell, int endCell) {
+        return search(startCell, endCell);
+    }
+
+    @Override
+    public SolverStats getStats() {
+        return new SolverStats(getName(), queries, expanded, nanos);
+    }
+
+    private void writePath(int endCell, int steps, int[] path) {
+        int current = endCell;
+        for (int i = steps; i >= 0; i--) {
+            path[i] = current;
+            current = parent[current];
+        }
+    }
+
+    private int search(int startCell, int endCell) {
+        long start = System.nanoTime();
+        int steps = aStar(startCell, endCell);
+        nanos += System.nanoTime() - start;
+        queries++;
+        return steps;
+    }
+
+    private int aStar(int startCell, int endCell) {
+        nextStamp();
+        heapSize = 0;
+
+        int cols = walls.getCols();
+        int endRow = endCell / cols;
+        int endCol = endCell % cols;
+
+        g[startCell] = 0;
+        parent[startCell] = startCell;
+        seen[startCell] = stamp;
+        push(startCell, 0, heuristic(startCell, cols, endRow, endCol));
+
+        while (heapSize > 0) {
+            int cell = pop();
+            if (closed[cell] == stamp) {
+                continue;
+            }
+            closed[cell] = stamp;
+            expanded++;
+            if (cell == endCell) {
+                return g[cell];
+            }
+
+            int nextG = g[cell] + 1;
+            int open = walls.openDirections(cell);
+            while (open != 0) {
+                int direction = Integer.numberOfTrailingZeros(open);
+                open &= open - 1;
+                int neighbor = walls.neighborOf(cell, direction);
+                if (seen[neighbor] != stamp || nextG < g[neighbor]) {
+                    seen[neighbor] = stamp;
+                    g[neighbor] = nextG;
+                    parent[neighbor] = cell;
+                    push(neighbor, nextG, heuristic(neighbor, cols, endRow, endCol));
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int heuristic(int cell, int cols, int endRow, int endCol) {
+        int row = cell / cols;
+        int col = cell - row * cols;
+        return Math.abs(row - endRow) + Math.abs(col - endCol);
+    }
+
+    private void push(int cell, int cellG, int h) {
+        if (heapSize == heapKeys.length) {
+            heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+            heapCells = Arrays.copyOf(heapCells, heapSize * 2);
+        }
+        // Lower f first, then higher g
+        long key = ((long) (cellG + h) << 32) | (Integer.MAX_VALUE - cellG);
+
+        int i = heapSize++;
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (heapKeys[up] <= key) {
+                break;
+            }
+            heapKeys[i] = heapKeys[up];
+            heapCells[i] = heapCells[up];
+            i = up;
+        }
+        heapKeys[i] = key;
+        heapCells[i] = cell;
+    }
+
+    private int pop() {
+        int top = heapCells[0];
+        long key = heapKeys[--heapSize];
+        int cell = heapCells[heapSize];
+
+        int i = 0;
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child++;
+            }
+            if (key <= heapKeys[child]) {
+                break;
+            }
+            heapKeys[i] = heapKeys[child];
+            heapCells[i] = heapCells[child];
+            i = child;
+        }
+        heapKeys[i] = key;
+        heapCells[i] = cell;
+        return top;
+    }
+
+    private void nextStamp() {
+        stamp++;
+        if (stamp == 0) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            stamp = 1;
+        }
+    }
+}
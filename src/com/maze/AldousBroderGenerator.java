@@ -0,0 +1,46 @@
+package com.maze;
+
+import java.util.BitSet;
+import java.util.random.RandomGenerator;
+
+// Aldous-Broder: a random walk that opens a wall every time it steps into a cell
+// it has not seen before.  Slow to finish, but produces a uniform spanning tree.
+public class AldousBroderGenerator implements MazeGenerator {
+
+    @Override
+    public String getName() {
+        return "aldous-broder";
+    }
+
+    @Override
+    public long carve(WallGrid walls, RandomGenerator random) {
+        int cellCount = walls.getCellCount();
+        BitSet visited = new BitSet(cellCount);
+
+        int cell = random.nextInt(cellCount);
+        visited.set(cell);
+        int remaining = cellCount - 1;
+
+        while (remaining > 0) {
+            int direction = randomDirection(walls, cell, random);
+            int next = walls.neighborOf(cell, direction);
+            if (!visited.get(next)) {
+                walls.removeWall(cell, direction);
+                visited.set(next);
+                remaining--;
+            }
+            cell = next;
+        }
+
+        return GenerationStats.bitSetBytes(cellCount);
+    }
+
+    // Random direction that leads to another cell.  The grid must have more than one cell.
+    static int randomDirection(WallGrid walls, int cell, RandomGenerator random) {
+        int direction;
+        do {
+            direction = random.nextInt(4);
+        } while (!walls.hasNeighbor(cell, direction));
+        return direction;
+    }
+}
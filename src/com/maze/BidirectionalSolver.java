@@ -0,0 +1,174 @@
+package com.maze;
+
+import java.util.Arrays;
+
+// Breadth first search from both ends at once.  Each round expands one whole level
+// of whichever frontier is smaller; the first level that touches the other side's
+// visited cells holds the shortest meeting point.  On open, looped mazes this
+// expands far fewer cells than a one-sided search.
+public final class BidirectionalSolver implements MazeSolver {
+    private static final int FORWARD = 0;
+    private static final int BACKWARD = 1;
+
+    private final WallGrid walls;
+    private final int[][] queue = new int[2][];
+    private final int[][] parent = new int[2][];
+    private final int[][] depth = new int[2][];
+    private final int[][] seen = new int[2][];
+    private final int[] head = new int[2];
+    private final int[] tail = new int[2];
+    private int stamp = 0;
+    private int best;
+    private int meetForward;        // Last cell of the forward half of the best path
+    private int meetBackward;       // First cell of the backward half
+    private long expanded = 0;
+    private long queries = 0;
+    private long nanos = 0;
+
+    public BidirectionalSolver(WallGrid walls) {
+        int cellCount = walls.getCellCount();
+        this.walls = walls;
+        for (int side = FORWARD; side <= BACKWARD; side++) {
+            queue[side] = new int[cellCount];
+            parent[side] = new int[cellCount];
+            depth[side] = new int[cellCount];
+            seen[side] = new int[cellCount];
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "bidirectional-bfs";
+    }
+
+    @Override
+    public int findPath(int startCell, int endCell, int[] path) {
+        int steps = search(startCell, endCell);
+        if (steps < 0) {
+            return -1;
+        }
+        if (steps + 1 > path.length) {
+            throw new IllegalArgumentException("Path of " + (steps + 1) + " cells doesn't fit in " + path.length);
+        }
+        writePath(path);
+        return steps + 1;
+    }
+
+    @Override
+    public int[] findPath(int startCell, int endCell) {
+        int steps = search(startCell, endCell);
+        if (steps < 0) {
+            return null;
+        }
+        int[] path = new int[steps + 1];
+        writePath(path);
+        return path;
+    }
+
+    @Override
+    public int distance(int startCell, int endCell) {
+        return search(startCell, endCell);
+    }
+
+    @Override
+    public SolverStats getStats() {
+        return new SolverStats(getName(), queries, expanded, nanos);
+    }
+
+    private void writePath(int[] path) {
+        int i = depth[FORWARD][meetForward];
+        for (int cell = meetForward; i >= 0; cell = parent[FORWARD][cell]) {
+            path[i--] = cell;
+        }
+        if (meetBackward < 0) {
+            return;
+        }
+        int j = depth[FORWARD][meetForward] + 1;
+        int last = j + depth[BACKWARD][meetBackward];
+        for (int cell = meetBackward; j <= last; cell = parent[BACKWARD][cell]) {
+            path[j++] = cell;
+        }
+    }
+
+    private int search(int startCell, int endCell) {
+        long start = System.nanoTime();
+        int steps = bidirectional(startCell, endCell);
+        nanos += System.nanoTime() - start;
+        queries++;
+        return steps;
+    }
+
+    private int bidirectional(int startCell, int endCell) {
+        nextStamp();
+        begin(FORWARD, startCell);
+        if (startCell == endCell) {
+            meetForward = startCell;
+            meetBackward = -1;
+            return 0;
+        }
+        begin(BACKWARD, endCell);
+        best = Integer.MAX_VALUE;
+
+        while (head[FORWARD] < tail[FORWARD] && head[BACKWARD] < tail[BACKWARD]) {
+            int side = tail[FORWARD] - head[FORWARD] <= tail[BACKWARD] - head[BACKWARD] ? FORWARD : BACKWARD;
+            expandLevel(side);
+            if (best != Integer.MAX_VALUE) {
+                return best;
+            }
+        }
+        return -1;
+    }
+
+    private void begin(int side, int cell) {
+        head[side] = 0;
+        tail[side] = 1;
+        queue[side][0] = cell;
+        seen[side][cell] = stamp;
+        depth[side][cell] = 0;
+        parent[side][cell] = cell;
+    }
+
+    private void expandLevel(int side) {
+        int other = 1 - side;
+        int[] sideQueue = queue[side];
+        int[] sideSeen = seen[side];
+        int[] sideDepth = depth[side];
+        int[] sideParent = parent[side];
+        int levelEnd = tail[side];
+
+        while (head[side] < levelEnd) {
+            int cell = sideQueue[head[side]++];
+            expanded++;
+            int open = walls.openDirections(cell);
+            while (open != 0) {
+                int direction = Integer.numberOfTrailingZeros(open);
+                open &= open - 1;
+                int neighbor = walls.neighborOf(cell, direction);
+
+                if (seen[other][neighbor] == stamp) {
+                    int total = sideDepth[cell] + 1 + depth[other][neighbor];
+                    if (total < best) {
+                        best = total;
+                        meetForward = side == FORWARD ? cell : neighbor;
+                        meetBackward = side == FORWARD ? neighbor : cell;
+                    }
+                }
+                if (sideSeen[neighbor] != stamp) {
+                    sideSeen[neighbor] = stamp;
+                    sideDepth[neighbor] = sideDepth[cell] + 1;
+                    sideParent[neighbor] = cell;
+                    sideQueue[tail[side]++] = neighbor;
+                }
+            }
+        }
+    }
+
+    private void nextStamp() {
+        stamp++;
+        if (stamp == 0) {
+            Arrays.fill(seen[FORWARD], 0);
+            Arrays.fill(seen[BACKWARD], 0);
+            stamp = 1;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.maze;
+
+import java.util.random.RandomGenerator;
+
+// Carves a perfect maze with another generator, then removes dead ends by knocking
+// out one extra wall at each of them with the given probability.  The result has
+// loops, so there can be more than one route between two cells.  A fraction of 0
+// leaves the maze perfect and 1 removes every dead end.
+public final class BraidedGenerator implements MazeGenerator {
+    private final MazeGenerator base;
+    private final double fraction;
+
+    public BraidedGenerator(MazeGenerator base, double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("Braid fraction must be between 0 and 1: " + fraction);
+        }
+        this.base = base;
+        this.fraction = fraction;
+    }
+
+    public double getFraction() {
+        return fraction;
+    }
+
+    @Override
+    public String getName() {
+        return "braided-" + base.getName();
+    }
+
+    @Override
+    public long carve(WallGrid walls, RandomGenerator random) {
+        long peakBytes = base.carve(walls, random);
+
+        int[] candidates = new int[4];
+        for (int cell = 0; cell < walls.getCellCount(); cell++) {
+            int open = walls.openDirections(cell);
+            // Earlier removals may already have opened this dead end up
+            if (Integer.bitCount(open) != 1 || random.nextDouble() >= fraction) {
+                continue;
+            }
+
+            // Prefer joining two dead ends, which fixes both with one wall
+            int count = 0;
+            int deadEnds = 0;
+            for (int direction = 0; direction < 4; direction++) {
+                if ((open & (1 << direction)) != 0 || !walls.hasNeighbor(cell, direction)) {
+                    continue;
+                }
+                int neighbor = walls.neighborOf(cell, direction);
+                if (Integer.bitCount(walls.openDirections(neighbor)) == 1) {
+                    candidates[count++] = candidates[deadEnds];
+                    candidates[deadEnds++] = direction;
+                } else {
+                    candidates[count++] = direction;
+                }
+            }
+            if (count > 0) {
+                int pick = deadEnds > 0 ? random.nextInt(deadEnds) : random.nextInt(count);
+                walls.removeWall(cell, candidates[pick]);
+            }
+        }
+        return peakBytes;
+    }
+}
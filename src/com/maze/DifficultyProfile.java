@@ -0,0 +1,44 @@
+package com.maze;
+
+// What a maze should look like to count as a given difficulty.  Ratios are per cell:
+// dead ends are cells with one way out and junctions cells with three or more, so
+// the junction ratio is a measure of how much the maze branches.  Bounds are
+// inclusive; start from any() and narrow it with the with* methods.
+public record DifficultyProfile(int minSolutionLength, int maxSolutionLength,
+                                double minDeadEndRatio, double maxDeadEndRatio,
+                                double minJunctionRatio, double maxJunctionRatio) {
+
+    public static DifficultyProfile any() {
+        return new DifficultyProfile(0, Integer.MAX_VALUE, 0, 1, 0, 1);
+    }
+
+    public DifficultyProfile withSolutionLength(int min, int max) {
+        return new DifficultyProfile(min, max, minDeadEndRatio, maxDeadEndRatio, minJunctionRatio, maxJunctionRatio);
+    }
+
+    public DifficultyProfile withDeadEndRatio(double min, double max) {
+        return new DifficultyProfile(minSolutionLength, maxSolutionLength, min, max, minJunctionRatio, maxJunctionRatio);
+    }
+
+    public DifficultyProfile withJunctionRatio(double min, double max) {
+        return new DifficultyProfile(minSolutionLength, maxSolutionLength, minDeadEndRatio, maxDeadEndRatio, min, max);
+    }
+
+    // The checks are split so a search can reject on the cheap counts before paying
+    // for a path search
+    public boolean matchesCounts(int cells, int deadEnds, int junctions) {
+        double deadEndRatio = deadEnds / (double) cells;
+        double junctionRatio = junctions / (double) cells;
+        return deadEndRatio >= minDeadEndRatio && deadEndRatio <= maxDeadEndRatio
+                && junctionRatio >= minJunctionRatio && junctionRatio <= maxJunctionRatio;
+    }
+
+    public boolean matchesSolutionLength(int solutionLength) {
+        return solutionLength >= minSolutionLength && solutionLength <= maxSolutionLength;
+    }
+
+    public boolean matches(MazeStats stats) {
+        return matchesCounts(stats.cells(), stats.deadEnds(), stats.junctions())
+                && matchesSolutionLength(stats.solutionLength());
+    }
+}
@@ -0,0 +1,167 @@
+package com.maze;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Finds a maze that fits a DifficultyProfile by generating candidates on several
+// threads at once.  Worker k tries seeds seed + k, seed + k + threads, ... and checks
+// each candidate in order of cost: dead end and junction counts first, then the
+// solution length, so most rejects never pay for a path search.  The first match
+// stops every worker.  Which seed wins can depend on timing, but the result records
+// it, so the maze can always be made again.
+public class DifficultySearch implements AutoCloseable {
+    // walls and stats are null when nothing matched within the time budget
+    public record Result(WallGrid walls, long seed, MazeStats stats, int candidates, long elapsedNanos) {
+        public boolean isMatch() {
+            return walls != null;
+        }
+
+        public Maze toMaze(float mazeSize) {
+            if (walls == null) {
+                throw new IllegalStateException("No maze matched");
+            }
+            return new Maze(mazeSize, walls, seed);
+        }
+    }
+
+    // matches counts searches that returned a maze; passed counts every candidate that
+    // fit its profile, including ones that lost the race to another worker's match
+    public record Metrics(long searches, long matches, long candidates, long passed, long acceptNanos) {
+        // Share of evaluated candidates that fit their profile.  Every candidate a worker
+        // starts is checked to the end, so this estimates the profile's acceptance
+        // probability; since each search stops soon after a match, it reads a little
+        // high until many searches have run.
+        public double acceptanceRate() {
+            return candidates == 0 ? 0 : passed / (double) candidates;
+        }
+
+        public double meanTimeToAcceptMillis() {
+            return matches == 0 ? 0 : acceptNanos / 1e6 / matches;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d searches, %,d matched, %,d candidates, %,d passed, acceptance %.2f%%, mean time to accept %.2f ms",
+                    searches, matches, candidates, passed, 100 * acceptanceRate(), meanTimeToAcceptMillis());
+        }
+    }
+
+    private final Supplier<MazeGenerator> generators;
+    private final int threads;
+    private final ExecutorService executor;
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong matches = new AtomicLong();
+    private final AtomicLong candidates = new AtomicLong();
+    private final AtomicLong passed = new AtomicLong();
+    private final AtomicLong acceptNanos = new AtomicLong();
+
+    // generators makes one generator per worker, since generators keep scratch state
+    public DifficultySearch(Supplier<MazeGenerator> generators, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Invalid thread count: " + threads);
+        }
+        this.generators = generators;
+        this.threads = threads;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "maze-search-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public Result search(int size, DifficultyProfile profile, long seed, long timeBudgetNanos) {
+        long start = System.nanoTime();
+        long deadline = start + timeBudgetNanos;
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Result> winner = new AtomicReference<>();
+        AtomicInteger tried = new AtomicInteger();
+
+        List<Future<?>> workers = new ArrayList<>(threads);
+        for (int k = 0; k < threads; k++) {
+            int worker = k;
+            workers.add(executor.submit(() -> {
+                MazeGenerator generator = generators.get();
+                WallGrid walls = new WallGrid(size, size);
+                PathFinder finder = new PathFinder(walls);
+                int end = walls.getCellCount() - 1;
+                for (long candidate = seed + worker; !done.get() && System.nanoTime() < deadline; candidate += threads) {
+                    tried.incrementAndGet();
+                    generator.generate(walls, new Random(candidate));
+                    if (!matchesCounts(walls, profile) || !profile.matchesSolutionLength(finder.distance(0, end))) {
+                        continue;
+                    }
+                    passed.incrementAndGet();
+                    if (done.compareAndSet(false, true)) {
+                        winner.set(new Result(walls, candidate, MazeStats.analyze(walls), 0, 0));
+                    }
+                    return;
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (InterruptedException e) {
+                done.set(true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while searching", e);
+            } catch (ExecutionException e) {
+                done.set(true);
+                throw new IllegalStateException("Search failed", e.getCause());
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        searches.incrementAndGet();
+        candidates.addAndGet(tried.get());
+        Result found = winner.get();
+        if (found == null) {
+            return new Result(null, 0, null, tried.get(), elapsed);
+        }
+        matches.incrementAndGet();
+        acceptNanos.addAndGet(elapsed);
+        return new Result(found.walls(), found.seed(), found.stats(), tried.get(), elapsed);
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(searches.get(), matches.get(), candidates.get(), passed.get(), acceptNanos.get());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    // One pass over the degrees, giving up as soon as either count is over its limit
+    private static boolean matchesCounts(WallGrid walls, DifficultyProfile profile) {
+        int cellCount = walls.getCellCount();
+        long maxDeadEnds = (long) Math.floor(profile.maxDeadEndRatio() * cellCount + 1e-9);
+        long maxJunctions = (long) Math.floor(profile.maxJunctionRatio() * cellCount + 1e-9);
+        int deadEnds = 0;
+        int junctions = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            int degree = Integer.bitCount(walls.openDirections(cell));
+            if (degree == 1 && ++deadEnds > maxDeadEnds) {
+                return false;
+            }
+            if (degree >= 3 && ++junctions > maxJunctions) {
+                return false;
+            }
+        }
+        return profile.matchesCounts(cellCount, deadEnds, junctions);
+    }
+}
@@ -0,0 +1,46 @@
+package com.maze;
+
+import java.util.random.RandomGenerator;
+
+// Eller's algorithm over a whole WallGrid, fed from an EllerRowStream
+public class EllerGenerator implements MazeGenerator {
+
+    @Override
+    public String getName() {
+        return "eller";
+    }
+
+    @Override
+    public long carve(WallGrid walls, RandomGenerator random) {
+        int cols = walls.getCols();
+        EllerRowStream stream = new EllerRowStream(cols, walls.getRows(), random);
+
+        while (stream.hasNext()) {
+            WallRow row = stream.next();
+            int rowStart = (int) row.getIndex() * cols;
+            for (int col = 0; col < cols; col++) {
+                if (!row.isWall(col, WallGrid.RIGHT)) {
+                    walls.removeWall(rowStart + col, WallGrid.RIGHT);
+                }
+                if (!row.isWall(col, WallGrid.BOTTOM)) {
+                    walls.removeWall(rowStart + col, WallGrid.BOTTOM);
+                }
+            }
+        }
+
+        return stream.getScratchBytes();
+    }
+
+    // Generates straight into an off-heap store, a row at a time, for boards too big
+    // for a WallGrid.  Only the O(width) row state is kept on the heap.
+    public GenerationStats generate(OffHeapWallStore store, RandomGenerator random) {
+        store.resetWalls();
+        long start = System.nanoTime();
+        EllerRowStream stream = new EllerRowStream(store.getCols(), store.getRows(), random);
+        while (stream.hasNext()) {
+            store.writeRow(stream.next());
+        }
+        long elapsed = System.nanoTime() - start;
+        return new GenerationStats(getName(), store.getCellCount(), elapsed, stream.getScratchBytes());
+    }
+}
@@ -0,0 +1,135 @@
+package com.maze;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.random.RandomGenerator;
+
+// Streams a maze one row at a time using Eller's algorithm.  Only the set labels of
+// the current row are kept, so memory is O(width) no matter how many rows are
+// produced.  Pass ENDLESS as the height for a maze that never closes off.
+//
+// A "row" is every cell with the same row index; neighbors along it are joined
+// through BOTTOM walls and cells carve down into the next row through RIGHT walls.
+// next() returns the same WallRow each time, overwritten with the new row.
+public class EllerRowStream implements Iterator<WallRow> {
+    public static final long ENDLESS = Long.MAX_VALUE;
+
+    private final int width;
+    private final long height;
+    private final RandomGenerator random;
+    private final WallRow row;
+
+    private int[] sets;                 // Set label of each cell in the current row, -1 if none
+    private int[] next;                 // Labels carried down into the next row
+    private final int[] parent;         // Union-find over the labels of the current row
+    private final int[] remap;
+    private final int[] count;
+    private final boolean[] carved;
+    private long rowIndex = 0;
+
+    public EllerRowStream(int width, long height, RandomGenerator random) {
+        if (height <= 0) {
+            throw new IllegalArgumentException("Invalid maze height: " + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.random = random;
+        this.row = new WallRow(width);
+        this.sets = new int[width];
+        this.next = new int[width];
+        this.parent = new int[width];
+        this.remap = new int[width];
+        this.count = new int[width];
+        this.carved = new boolean[width];
+        Arrays.fill(sets, -1);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public long getHeight() {
+        return height;
+    }
+
+    // Scratch memory held by the stream, including the row it hands out
+    public long getScratchBytes() {
+        return 5L * width * Integer.BYTES + width + ((width + 31) / 32) * (long) Long.BYTES;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return rowIndex < height;
+    }
+
+    @Override
+    public WallRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        boolean lastRow = rowIndex == height - 1;
+        row.reset(rowIndex, lastRow);
+
+        // Compact the carried labels to 0..k-1 and hand out fresh labels to the rest
+        Arrays.fill(remap, -1);
+        int labels = 0;
+        for (int col = 0; col < width; col++) {
+            if (sets[col] >= 0) {
+                if (remap[sets[col]] < 0) {
+                    remap[sets[col]] = labels++;
+                }
+                sets[col] = remap[sets[col]];
+            }
+        }
+        for (int col = 0; col < width; col++) {
+            if (sets[col] < 0) {
+                sets[col] = labels++;
+            }
+        }
+        for (int i = 0; i < labels; i++) {
+            parent[i] = i;
+        }
+
+        // Randomly join neighbors in different sets; the last row joins all of them
+        for (int col = 0; col < width - 1; col++) {
+            int root1 = KruskalGenerator.find(parent, sets[col]);
+            int root2 = KruskalGenerator.find(parent, sets[col + 1]);
+            if (root1 != root2 && (lastRow || random.nextBoolean())) {
+                row.removeWall(col, WallGrid.BOTTOM);
+                parent[root2] = root1;
+            }
+        }
+
+        if (!lastRow) {
+            // Every set must carve down at least once so nothing is left disconnected
+            for (int i = 0; i < labels; i++) {
+                count[i] = 0;
+                carved[i] = false;
+            }
+            for (int col = 0; col < width; col++) {
+                sets[col] = KruskalGenerator.find(parent, sets[col]);
+                count[sets[col]]++;
+            }
+            for (int col = 0; col < width; col++) {
+                int root = sets[col];
+                int remaining = --count[root];
+                if (random.nextBoolean() || (remaining == 0 && !carved[root])) {
+                    row.removeWall(col, WallGrid.RIGHT);
+                    carved[root] = true;
+                    next[col] = root;
+                } else {
+                    next[col] = -1;
+                }
+            }
+
+            int[] swap = sets;
+            sets = next;
+            next = swap;
+        }
+
+        rowIndex++;
+        return row;
+    }
+}
@@ -0,0 +1,35 @@
+package com.maze;
+
+import java.util.random.RandomGenerator;
+
+// Plays a GameSession in place of a keyboard.  Returns the WallGrid direction to try
+// next, or -1 to give up.
+@FunctionalInterface
+public interface GameBot {
+    int nextDirection(GameSession session);
+
+    // Follows the goal field straight to the end
+    static GameBot optimal() {
+        return session -> {
+            Maze maze = session.getMaze();
+            return maze.getGoalField().nextDirection(maze.getPlayerCell());
+        };
+    }
+
+    // Tries directions at random, walls included
+    static GameBot random(RandomGenerator random) {
+        return session -> random.nextInt(4);
+    }
+
+    // Takes the optimal step with probability skill and a random one otherwise
+    static GameBot skilled(double skill, RandomGenerator random) {
+        GameBot optimal = optimal();
+        return session -> random.nextDouble() < skill ? optimal.nextDirection(session) : random.nextInt(4);
+    }
+
+    // Plays back a fixed list of directions, then gives up
+    static GameBot scripted(int... directions) {
+        int[] next = { 0 };
+        return session -> next[0] < directions.length ? directions[next[0]++] : -1;
+    }
+}
@@ -0,0 +1,8 @@
+package com.maze;
+
+// Source of time for a GameSession, in seconds.  The game passes glfwGetTime;
+// simulations use a SimulatedClock so they don't depend on a window or real time.
+@FunctionalInterface
+public interface GameClock {
+    double now();
+}
@@ -0,0 +1,88 @@
+package com.maze;
+
+// The rules of one game, independent of any window: moving with a cooldown, scoring
+// each newly visited cell by whether it is on the solution path, and noticing when
+// the player reaches the end.  Driven by keyboard input in Game, or by a GameBot in
+// a SimulationRunner.
+public class GameSession {
+    public static final double DEFAULT_MOVE_COOLDOWN = 0.15;
+
+    private final Maze maze;
+    private final GameClock clock;
+    private final double moveCooldown;
+    private final double startTime;
+    private double lastMoveTime = Double.NEGATIVE_INFINITY;
+    private double finishTime = Double.NaN;
+    private int score = 0;
+    private int moves = 0;
+    private boolean won = false;
+
+    public GameSession(Maze maze, GameClock clock) {
+        this(maze, clock, DEFAULT_MOVE_COOLDOWN);
+    }
+
+    public GameSession(Maze maze, GameClock clock, double moveCooldown) {
+        this.maze = maze;
+        this.clock = clock;
+        this.moveCooldown = moveCooldown;
+        maze.setPlayerPosition(0, 0);
+        maze.clearVisited();
+        maze.visitCell(maze.getStartCell());
+        this.startTime = clock.now();
+    }
+
+    public Maze getMaze() {
+        return maze;
+    }
+
+    // False while the last move is still cooling down
+    public boolean canMove() {
+        return clock.now() - lastMoveTime >= moveCooldown;
+    }
+
+    // Same dx/dy convention as Maze.movePlayer.  An attempt starts the cooldown even
+    // when a wall is in the way.
+    public boolean move(int dx, int dy) {
+        lastMoveTime = clock.now();
+        return !won && moved(maze.movePlayer(dx, dy));
+    }
+
+    // Moves in a WallGrid direction
+    public boolean move(int direction) {
+        lastMoveTime = clock.now();
+        return !won && moved(maze.movePlayer(direction));
+    }
+
+    private boolean moved(boolean moved) {
+        if (!moved) {
+            return false;
+        }
+        moves++;
+        int cell = maze.getPlayerCell();
+        if (maze.visitCell(cell)) {
+            score += maze.calculateMoveScore(cell);
+        }
+        if (cell == maze.getEndCell()) {
+            won = true;
+            finishTime = clock.now();
+        }
+        return true;
+    }
+
+    public boolean isWon() {
+        return won;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getMoves() {
+        return moves;
+    }
+
+    // Time since the session started, stopping when the end is reached
+    public double getElapsedSeconds() {
+        return (won ? finishTime : clock.now()) - startTime;
+    }
+}
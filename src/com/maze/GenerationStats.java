@@ -0,0 +1,23 @@
+package com.maze;
+
+// Timing and memory figures for one run of a MazeGenerator
+public record GenerationStats(String algorithm, long cells, long nanos, long peakScratchBytes) {
+
+    public double cellsPerSecond() {
+        return nanos == 0 ? 0 : cells / (nanos / 1e9);
+    }
+
+    public long peakBytes(WallGrid walls) {
+        return walls.getMemoryBytes() + peakScratchBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %,d cells in %.2f ms (%,.0f cells/sec, %,d scratch bytes)",
+                algorithm, cells, nanos / 1e6, cellsPerSecond(), peakScratchBytes);
+    }
+
+    static long bitSetBytes(int bits) {
+        return ((bits + 63L) / 64) * Long.BYTES;
+    }
+}
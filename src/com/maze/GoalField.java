@@ -0,0 +1,114 @@
+package com.maze;
+
+import java.util.Arrays;
+
+// Distance and next step toward a fixed goal cell for every cell of a WallGrid,
+// built with a single breadth first search out from the goal.  Once built, the
+// distance and hint for any cell are O(1) and the path to the goal is O(length).
+public final class GoalField {
+    private final WallGrid walls;
+    private final int goalCell;
+    private final long modCount;
+    private final int[] distance;   // Steps to the goal, -1 if the goal can't be reached
+    private final byte[] nextHop;   // Direction of the first step toward the goal, -1 at the goal
+
+    public GoalField(WallGrid walls, int goalCell) {
+        int cellCount = walls.getCellCount();
+        this.walls = walls;
+        this.goalCell = goalCell;
+        this.modCount = walls.getModCount();
+        this.distance = new int[cellCount];
+        this.nextHop = new byte[cellCount];
+        Arrays.fill(distance, -1);
+        Arrays.fill(nextHop, (byte) -1);
+
+        int[] queue = new int[cellCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = goalCell;
+        distance[goalCell] = 0;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int open = walls.openDirections(cell);
+            while (open != 0) {
+                int direction = Integer.numberOfTrailingZeros(open);
+                open &= open - 1;
+                int neighbor = walls.neighborOf(cell, direction);
+                if (distance[neighbor] < 0) {
+                    distance[neighbor] = distance[cell] + 1;
+                    nextHop[neighbor] = (byte) WallGrid.opposite(direction);
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    // Rebuilds a field from stored distances, e.g. from a MazeFile, without searching
+    GoalField(WallGrid walls, int goalCell, int[] distance) {
+        int cellCount = walls.getCellCount();
+        this.walls = walls;
+        this.goalCell = goalCell;
+        this.modCount = walls.getModCount();
+        this.distance = distance;
+        this.nextHop = new byte[cellCount];
+        Arrays.fill(nextHop, (byte) -1);
+
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (distance[cell] <= 0) {
+                continue;
+            }
+            int open = walls.openDirections(cell);
+            while (open != 0) {
+                int direction = Integer.numberOfTrailingZeros(open);
+                open &= open - 1;
+                if (distance[walls.neighborOf(cell, direction)] == distance[cell] - 1) {
+                    nextHop[cell] = (byte) direction;
+                    break;
+                }
+            }
+        }
+    }
+
+    public int getGoalCell() {
+        return goalCell;
+    }
+
+    // True once the walls have changed since this field was built
+    public boolean isStale() {
+        return walls.getModCount() != modCount;
+    }
+
+    public int distance(int cell) {
+        return distance[cell];
+    }
+
+    // The next cell on the way to the goal, or -1 at the goal or where it can't be reached
+    public int nextCell(int cell) {
+        int direction = nextHop[cell];
+        return direction < 0 ? -1 : walls.neighborOf(cell, direction);
+    }
+
+    // WallGrid direction of the first step toward the goal, or -1 at the goal or where
+    // it can't be reached
+    public int nextDirection(int cell) {
+        return nextHop[cell];
+    }
+
+    // The cells from cell to the goal inclusive, or null if the goal can't be reached
+    public int[] pathFrom(int cell) {
+        if (distance[cell] < 0) {
+            return null;
+        }
+        int[] path = new int[distance[cell] + 1];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = cell;
+            cell = nextCell(cell);
+        }
+        return path;
+    }
+
+    public long getMemoryBytes() {
+        return (long) distance.length * (Integer.BYTES + Byte.BYTES);
+    }
+}
@@ -1,102 +1,104 @@
 package com.maze;
 
-import edu.usu.graphics.Color;
-import edu.usu.graphics.Graphics2D;
 import edu.usu.graphics.Rectangle;
 import edu.usu.utils.Tuple2;
-import java.util.HashMap;
 
+// Lightweight view of a single cell in a Maze.  The walls live in the maze's
+// packed WallGrid; this object only remembers which cell it refers to, so views
+// can be created on demand and compared by value.
 public class GridSpace {
-    private final Tuple2<Float, Float> position;
-    private final HashMap<String, Boolean> walls = new HashMap<>();
-    private final Rectangle topWall;
-    private final Rectangle bottomWall;
-    private final Rectangle leftWall;
-    private final Rectangle rightWall;
-    private float wallThickness;
-    private float cellWidth;
-    private float x;
-    private float y;
-    private boolean visited = false;
-
-    public GridSpace(float x, float y, float cellWidth, float wallThickness) {
-        this.position = new Tuple2<>(x, y);
-
-        this.walls.put("top", true);
-        this.walls.put("bottom", true);
-        this.walls.put("left", true);
-        this.walls.put("right", true);
-
-        topWall = new Rectangle(x - cellWidth / 2, y - cellWidth / 2, cellWidth, wallThickness);
-        bottomWall = new Rectangle(x - cellWidth / 2, y + cellWidth / 2, cellWidth, wallThickness);
-        leftWall = new Rectangle(x - cellWidth / 2, y - cellWidth / 2, wallThickness, cellWidth);
-        rightWall = new Rectangle(x + cellWidth / 2, y - cellWidth / 2, wallThickness, cellWidth);
+    private final Maze maze;
+    private final int row;
+    private final int col;
+
+    GridSpace(Maze maze, int row, int col) {
+        this.maze = maze;
+        this.row = row;
+        this.col = col;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    public int getIndex() {
+        return maze.getWallGrid().indexOf(row, col);
     }
 
     public float getWallThickness() {
-        return wallThickness;
+        return maze.getWallThickness();
     }
 
     public float getX() {
-        return x;
+        return maze.getCellX(row);
     }
 
     public float getY() {
-        return y;
+        return maze.getCellY(col);
     }
 
     public float getCellSize() {
-        return cellWidth;
+        return maze.getCellSize();
     }
 
     public Tuple2<Float, Float> getPosition() {
-        return position;
+        return new Tuple2<>(getX(), getY());
     }
 
     public boolean isWall(String direction) {
-        return walls.get(direction);
+        return maze.getWallGrid().isWall(getIndex(), WallGrid.directionOf(direction));
     }
 
     public void removeWall(String direction) {
-        walls.replace(direction, false);
-    }
-
-    public void resetWalls() {
-        walls.replace("top", true);
-        walls.replace("bottom", true);
-        walls.replace("left", true);
-        walls.replace("right", true);
-    }
-
-    public boolean isVisited() {
-        return visited;
-    }
-
-    public void setVisited(boolean visited) {
-        this.visited = visited;
+        maze.getWallGrid().removeWall(getIndex(), WallGrid.directionOf(direction));
     }
 
     public Rectangle getTopRect() {
-        if (walls.get("top"))
-            return topWall;
+        if (isWall("top")) {
+            float cellWidth = getCellSize();
+            return new Rectangle(getX() - cellWidth / 2, getY() - cellWidth / 2, cellWidth, getWallThickness());
+        }
         return new Rectangle(0, 0, 0, 0);
     }
 
     public Rectangle getBottomRect() {
-        if (walls.get("bottom"))
-            return bottomWall;
+        if (isWall("bottom")) {
+            float cellWidth = getCellSize();
+            return new Rectangle(getX() - cellWidth / 2, getY() + cellWidth / 2, cellWidth, getWallThickness());
+        }
         return new Rectangle(0, 0, 0, 0);
     }
 
     public Rectangle getLeftRect() {
-        if (walls.get("left"))
-            return leftWall;
+        if (isWall("left")) {
+            float cellWidth = getCellSize();
+            return new Rectangle(getX() - cellWidth / 2, getY() - cellWidth / 2, getWallThickness(), cellWidth);
+        }
         return new Rectangle(0, 0, 0, 0);
     }
 
     public Rectangle getRightRect() {
-        if (walls.get("right"))
-            return rightWall;
+        if (isWall("right")) {
+            float cellWidth = getCellSize();
+            return new Rectangle(getX() + cellWidth / 2, getY() - cellWidth / 2, getWallThickness(), cellWidth);
+        }
         return new Rectangle(0, 0, 0, 0);
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GridSpace other = (GridSpace) o;
+        return maze == other.maze && row == other.row && col == other.col;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * row + col;
+    }
 }
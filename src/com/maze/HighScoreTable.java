@@ -0,0 +1,66 @@
+package com.maze;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Best scores first.  A new score goes after any equal scores already in the table.
+// The game keeps every score, as it always has; a capacity keeps just the best ones,
+// e.g. for simulations that post thousands of games.  Safe to share between threads.
+public class HighScoreTable {
+    public record Entry(int score, int mazeSize) {
+        @Override
+        public String toString() {
+            return "Maze Size: " + mazeSize + "x" + mazeSize + ", Score: " + score;
+        }
+    }
+
+    private final int capacity;
+    private final List<Entry> entries = new ArrayList<>();
+
+    // Keeps every score
+    public HighScoreTable() {
+        this(Integer.MAX_VALUE);
+    }
+
+    // Keeps the best capacity scores and drops the rest
+    public HighScoreTable(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    // True if the score made it into the table
+    public synchronized boolean add(int score, int mazeSize) {
+        int low = 0;
+        int high = entries.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries.get(mid).score() >= score) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low >= capacity) {
+            return false;
+        }
+        entries.add(low, new Entry(score, mazeSize));
+        if (entries.size() > capacity) {
+            entries.remove(entries.size() - 1);
+        }
+        return true;
+    }
+
+    public synchronized List<Entry> getEntries() {
+        return List.copyOf(entries);
+    }
+
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,79 @@
+package com.maze;
+
+import java.util.random.RandomGenerator;
+
+// Randomized Kruskal's algorithm.  Every interior wall is visited once in random
+// order and removed when it separates two different sets of a union-find.
+public class KruskalGenerator implements MazeGenerator {
+
+    @Override
+    public String getName() {
+        return "kruskal";
+    }
+
+    @Override
+    public long carve(WallGrid walls, RandomGenerator random) {
+        int rows = walls.getRows();
+        int cols = walls.getCols();
+        int cellCount = walls.getCellCount();
+
+        // Encoded interior walls, same encoding as PrimGenerator
+        int wallCount = rows * (cols - 1) + cols * (rows - 1);
+        int[] wallIds = new int[wallCount];
+        int n = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (walls.rowOf(cell) < rows - 1) {
+                wallIds[n++] = PrimGenerator.encodeWall(cell, WallGrid.RIGHT);
+            }
+            if (walls.colOf(cell) < cols - 1) {
+                wallIds[n++] = PrimGenerator.encodeWall(cell, WallGrid.BOTTOM);
+            }
+        }
+
+        int[] parent = new int[cellCount];
+        byte[] rank = new byte[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            parent[i] = i;
+        }
+
+        // Fisher-Yates shuffle as we go, stopping once the tree is complete
+        int joined = 0;
+        for (int i = wallCount - 1; i >= 0 && joined < cellCount - 1; i--) {
+            int pick = random.nextInt(i + 1);
+            int wall = wallIds[pick];
+            wallIds[pick] = wallIds[i];
+
+            int cell = wall >>> 1;
+            int direction = (wall & 1) == 0 ? WallGrid.RIGHT : WallGrid.BOTTOM;
+            int root1 = find(parent, cell);
+            int root2 = find(parent, walls.neighborOf(cell, direction));
+            if (root1 != root2) {
+                walls.removeWall(cell, direction);
+                union(parent, rank, root1, root2);
+                joined++;
+            }
+        }
+
+        return (long) wallCount * Integer.BYTES + (long) cellCount * Integer.BYTES + cellCount;
+    }
+
+    // Find with path halving, which compresses the path as it walks it
+    static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    static void union(int[] parent, byte[] rank, int root1, int root2) {
+        if (rank[root1] < rank[root2]) {
+            parent[root1] = root2;
+        } else if (rank[root1] > rank[root2]) {
+            parent[root2] = root1;
+        } else {
+            parent[root2] = root1;
+            rank[root1]++;
+        }
+    }
+}
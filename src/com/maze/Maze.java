@@ -1,49 +1,133 @@
 package com.maze;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Queue;
 import java.util.Random;
-import java.util.Set;
-import java.util.HashMap;
-import java.util.Collections;
 
 public class Maze {
     private final int gridSpacesPerRow;
-    private ArrayList<ArrayList<GridSpace>> gridSpaces = new ArrayList<>();
-    private final Random random = new Random();
+    private final WallGrid walls;
+    private final long seed;
     private int playerX = 0; // Player's row index
     private int playerY = 0; // Player's column index
     private float CELL_WIDTH;
     private float WALL_THICKNESS;
     private float mazeCenterX;
     private float mazeCenterY;
+    private GenerationStats generationStats;
+    private SolverAlgorithm solverAlgorithm = SolverAlgorithm.BFS;
+    private MazeSolver solver;
+    private GoalField goalField;
+    private BitSet solutionCells;   // Cells on the shortest path from the start to the end
+    private final BitSet visitedCells;  // Cells the player has stepped on, for breadcrumbs
+    private TreeDistanceOracle distanceOracle;
 
     public Maze(float size, int gridSpacesPerRow){
-        this.gridSpacesPerRow = gridSpacesPerRow;
+        this(size, gridSpacesPerRow, new Random().nextLong());
+    }
+
+    public Maze(float size, int gridSpacesPerRow, long seed){
+        this(size, gridSpacesPerRow, seed, MazeAlgorithm.PRIM.create());
+    }
+
+    public Maze(float size, int gridSpacesPerRow, MazeGenerator generator){
+        this(size, gridSpacesPerRow, new Random().nextLong(), generator);
+    }
+
+    // The same seed and generator always produce the same maze
+    public Maze(float size, int gridSpacesPerRow, long seed, MazeGenerator generator){
+        this(size, new WallGrid(gridSpacesPerRow, gridSpacesPerRow), seed);
+        generationStats = generator.generate(walls, new Random(seed));
+    }
+
+    // Generates into a grid the caller provides, such as one from an OffHeapWallStore.
+    // The maze keeps using that grid, so it must outlive the maze.
+    public Maze(float size, WallGrid walls, long seed, MazeGenerator generator){
+        this(size, walls, seed);
+        generationStats = generator.generate(walls, new Random(seed));
+    }
+
+    // Builds a maze around a previously generated topology, e.g. one from a MazeCache
+    public Maze(float size, MazeTopology topology){
+        this(size, topology.toWallGrid(), topology.getSeed());
+    }
+
+    // Builds a maze from its binary form, e.g. one entry of a MazeCatalog.  A stored
+    // distance field toward the end cell is reused instead of searched again.
+    public Maze(float size, MazeFile file){
+        this(size, file.toWallGrid(), file.getSeed());
+        if (file.hasDistances() && file.getGoalCell() == getEndCell()) {
+            goalField = file.toGoalField(walls);
+        }
+    }
+
+    // Builds a maze around walls that are already carved, e.g. by a DifficultySearch.
+    // The maze uses the grid itself rather than a copy.
+    public Maze(float size, WallGrid walls, long seed){
+        if (walls.getRows() != walls.getCols()) {
+            throw new IllegalArgumentException("Maze must be square: " + walls.getRows() + "x" + walls.getCols());
+        }
+        this.gridSpacesPerRow = walls.getRows();
+        this.seed = seed;
         this.CELL_WIDTH = size / gridSpacesPerRow;
         this.WALL_THICKNESS = .002f;
         this.mazeCenterX = CELL_WIDTH * (gridSpacesPerRow / 2f);
         this.mazeCenterY = CELL_WIDTH * (gridSpacesPerRow / 2f);
 
         // Build the grid
+        this.walls = walls;
+        this.visitedCells = new BitSet(walls.getCellCount());
+
+        setPlayerPosition(0, 0); // Initialize player at start
+    }
+
+    public ArrayList<ArrayList<GridSpace>> getGridSpaces(){
+        ArrayList<ArrayList<GridSpace>> gridSpaces = new ArrayList<>(gridSpacesPerRow);
         for (int i = 0; i < gridSpacesPerRow; i++) {
-            ArrayList<GridSpace> row = new ArrayList<>();
+            ArrayList<GridSpace> row = new ArrayList<>(gridSpacesPerRow);
             for (int j = 0; j < gridSpacesPerRow; j++) {
-                row.add(new GridSpace(i * CELL_WIDTH - mazeCenterX, j * CELL_WIDTH - mazeCenterY, CELL_WIDTH, WALL_THICKNESS));
+                row.add(new GridSpace(this, i, j));
             }
             gridSpaces.add(row);
         }
+        return gridSpaces;
+    }
 
-        generateMaze();
-        setPlayerPosition(0, 0); // Initialize player at start
+    public GridSpace getGridSpace(int row, int col) {
+        if (isValidCell(row, col)) {
+            return new GridSpace(this, row, col);
+        }
+        return null;
     }
 
-    public ArrayList<ArrayList<GridSpace>> getGridSpaces(){
-        return new ArrayList<>(gridSpaces);
+    public GridSpace getGridSpace(int cell) {
+        return new GridSpace(this, walls.rowOf(cell), walls.colOf(cell));
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // Null when the maze was built from an existing topology
+    public GenerationStats getGenerationStats() {
+        return generationStats;
+    }
+
+    public WallGrid getWallGrid() {
+        return walls;
+    }
+
+    public int getGridSpacesPerRow() {
+        return gridSpacesPerRow;
+    }
+
+    public float getCellX(int row) {
+        return row * CELL_WIDTH - mazeCenterX;
+    }
+
+    public float getCellY(int col) {
+        return col * CELL_WIDTH - mazeCenterY;
     }
 
     public float getCellSize() {
@@ -54,190 +138,160 @@ public class Maze {
         return WALL_THICKNESS;
     }
 
-    private void generateMaze() {
-        for (var row : gridSpaces) {
-            for (var gridSpace : row) {
-                gridSpace.resetWalls();
-                gridSpace.setVisited(false);
-            }
-        }
-
-        int startRow = 0;
-        int startCol = 0;
-        GridSpace startSpace = gridSpaces.get(startRow).get(startCol);
-        startSpace.setVisited(true);
-
-        Set<Wall> frontier = new HashSet<>();
-        addFrontierWalls(startSpace, frontier);
-
-        while (!frontier.isEmpty()) {
-            Wall wall = getRandomWall(frontier);
-            frontier.remove(wall);
+    private boolean isValidCell(int row, int col) {
+        return walls.isValidCell(row, col);
+    }
 
-            GridSpace cell1 = wall.cell1;
-            GridSpace cell2 = wall.cell2;
+    public int getRowIndex(GridSpace cell) {
+        return cell.getRow();
+    }
 
-            GridSpace nextCell;
-            if (cell1.isVisited() && !cell2.isVisited()) {
-                nextCell = cell2;
-            } else if (!cell1.isVisited() && cell2.isVisited()) {
-                nextCell = cell1;
-            } else {
-                continue;
-            }
+    public int getColIndex(GridSpace cell) {
+        return cell.getCol();
+    }
 
-            removeWallBetween(cell1, cell2);
-            nextCell.setVisited(true);
-            addFrontierWalls(nextCell, frontier);
+    public List<GridSpace> findShortestPath(GridSpace start, GridSpace end) {
+        if (start == null || end == null) {
+            return null; // Handle invalid input
         }
+        return toGridSpaces(findShortestPath(start.getIndex(), end.getIndex()));
     }
 
-    private void addFrontierWalls(GridSpace cell, Set<Wall> frontier) {
-        int row = getRowIndex(cell);
-        int col = getColIndex(cell);
+    // Search over cell indices with the current solver.  Returns the cells from start
+    // to end inclusive, or null if end cannot be reached.
+    public int[] findShortestPath(int startCell, int endCell) {
+        return getSolver().findPath(startCell, endCell);
+    }
 
-        // Check neighbors
-        int[][] directions = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
-        for (int i = 0; i < directions.length; i++) {
-            int newRow = row + directions[i][0];
-            int newCol = col + directions[i][1];
+    // Allocation free form: writes the path into the caller's buffer and returns its
+    // length, or -1 if end cannot be reached
+    public int findShortestPath(int startCell, int endCell, int[] path) {
+        return getSolver().findPath(startCell, endCell, path);
+    }
 
-            if (isValidCell(newRow, newCol)) {
-                GridSpace neighbor = gridSpaces.get(newRow).get(newCol);
-                if (!neighbor.isVisited()) {
-                    frontier.add(new Wall(cell, neighbor));
-                }
-            }
+    public MazeSolver getSolver() {
+        if (solver == null) {
+            solver = solverAlgorithm.create(walls);
         }
+        return solver;
     }
 
-    private Wall getRandomWall(Set<Wall> frontier) {
-        int randomIndex = random.nextInt(frontier.size());
-        int i = 0;
-        for (Wall wall : frontier) {
-            if (i == randomIndex) {
-                return wall;
-            }
-            i++;
+    // Breadth first search suits perfect mazes; A* and bidirectional search pay off
+    // once a braided maze has loops and open areas
+    public void setSolverAlgorithm(SolverAlgorithm algorithm) {
+        if (algorithm != solverAlgorithm) {
+            solverAlgorithm = algorithm;
+            solver = null;
         }
-        return null;
     }
 
-    private void removeWallBetween(GridSpace cell1, GridSpace cell2) {
-        int row1 = getRowIndex(cell1);
-        int col1 = getColIndex(cell1);
-        int row2 = getRowIndex(cell2);
-        int col2 = getColIndex(cell2);
+    // method to find shortest path from player position
+    public List<GridSpace> findShortestPathFromPlayer() {
+        return toGridSpaces(getGoalField().pathFrom(getPlayerCell()));
+    }
 
-        if (row1 == row2) {
-            if (col1 < col2) {
-                cell1.removeWall("bottom");
-                cell2.removeWall("top");
-            } else { // cell1 is to the right of cell2
-                cell1.removeWall("top");
-                cell2.removeWall("bottom");
-            }
-        } else { // Same column, vertical wall
-            if (row1 < row2) { // cell2 is below cell1
-                cell1.removeWall("right");
-                cell2.removeWall("left");
-            } else { // cell1 is below cell2
-                cell1.removeWall("left");
-                cell2.removeWall("right");
-            }
-        }
+    // Shortest path from the start to the end, walked off the goal field
+    public List<GridSpace> getSolutionPath() {
+        return toGridSpaces(getGoalField().pathFrom(getStartCell()));
     }
 
-    private boolean isValidCell(int row, int col) {
-        return row >= 0 && row < gridSpacesPerRow && col >= 0 && col < gridSpacesPerRow;
+    // Next step from the player toward the end, or null when already there
+    public GridSpace getHintGridSpace() {
+        int next = getGoalField().nextCell(getPlayerCell());
+        return next < 0 ? null : getGridSpace(next);
     }
 
-    public int getRowIndex(GridSpace cell) {
-        for (int i = 0; i < gridSpacesPerRow; i++) {
-            if (gridSpaces.get(i).contains(cell)) {
-                return i;
-            }
+    // Distance and direction to the end for every cell.  Built on first use and
+    // rebuilt only if the walls change.
+    public GoalField getGoalField() {
+        if (goalField == null || goalField.isStale()) {
+            goalField = new GoalField(walls, getEndCell());
+            solutionCells = null;
         }
-        return -1;
+        return goalField;
     }
 
-    public int getColIndex(GridSpace cell) {
-        for (int i = 0; i < gridSpacesPerRow; i++) {
-            for (int j = 0; j < gridSpacesPerRow; j++) {
-                if (gridSpaces.get(i).get(j) == cell) {
-                    return j;
-                }
-            }
-        }
-        return -1;
+    // Dead ends, corridors, solution length and so on.  Computed fresh on every call.
+    public MazeStats analyze() {
+        return MazeStats.analyze(walls);
     }
 
-    public List<GridSpace> findShortestPath(GridSpace start, GridSpace end) {
-        if (start == null || end == null) {
-            return null; // Handle invalid input
+    // Cell to cell distances and paths without a search.  Built on first use and
+    // rebuilt only if the walls change.
+    public TreeDistanceOracle getDistanceOracle() {
+        if (distanceOracle == null || distanceOracle.isStale()) {
+            distanceOracle = new TreeDistanceOracle(walls);
         }
+        return distanceOracle;
+    }
 
-        Queue<GridSpace> queue = new LinkedList<>();
-        Map<GridSpace, GridSpace> predecessorMap = new HashMap<>(); // To reconstruct path
-        Set<GridSpace> visitedSpaces = new HashSet<>();
-
-        queue.offer(start);
-        visitedSpaces.add(start);
-        predecessorMap.put(start, null); // Start has no predecessor
+    public int distanceBetween(GridSpace a, GridSpace b) {
+        return getDistanceOracle().distance(a.getIndex(), b.getIndex());
+    }
 
-        while (!queue.isEmpty()) {
-            GridSpace currentSpace = queue.poll();
+    public List<GridSpace> pathBetween(GridSpace a, GridSpace b) {
+        return toGridSpaces(getDistanceOracle().path(a.getIndex(), b.getIndex()));
+    }
 
-            if (currentSpace == end) {
-                return reconstructPath(predecessorMap, end); // Path found!!!!!!!!!!!
+    public boolean isOnSolutionPath(int cell) {
+        GoalField field = getGoalField();
+        if (solutionCells == null) {
+            solutionCells = new BitSet(walls.getCellCount());
+            for (int current = getStartCell(); current >= 0; current = field.nextCell(current)) {
+                solutionCells.set(current);
             }
+        }
+        return solutionCells.get(cell);
+    }
 
-            int currentRow = getRowIndex(currentSpace);
-            int currentCol = getColIndex(currentSpace);
-
-            int[][] directions = { { 0, -1 }, { 0, 1 }, { 1, 0 }, { -1, 0 } };
-            String[] wallNames = { "top", "bottom", "right", "left" };
+    // Cells on the solution path, for iterating with nextSetBit.  Don't modify it.
+    public BitSet getSolutionCells() {
+        isOnSolutionPath(getStartCell());
+        return solutionCells;
+    }
 
-            for (int i = 0; i < directions.length; i++) {
-                int newRow = currentRow + directions[i][0];
-                int newCol = currentCol + directions[i][1];
+    // Marks a cell as visited by the player.  True the first time the cell is visited.
+    public boolean visitCell(int cell) {
+        if (visitedCells.get(cell)) {
+            return false;
+        }
+        visitedCells.set(cell);
+        return true;
+    }
 
-                if (isValidCell(newRow, newCol)) {
-                    GridSpace neighbor = gridSpaces.get(newRow).get(newCol);
+    public boolean isVisited(int cell) {
+        return visitedCells.get(cell);
+    }
 
-                    if (!visitedSpaces.contains(neighbor) && !hasWallBetween(currentSpace, neighbor, wallNames[i])) {
-                        visitedSpaces.add(neighbor);
-                        predecessorMap.put(neighbor, currentSpace);
-                        queue.offer(neighbor);
-                    }
-                }
-            }
-        }
+    // Cells the player has visited, for iterating with nextSetBit.  Don't modify it.
+    public BitSet getVisitedCells() {
+        return visitedCells;
+    }
 
-        return null;
+    public int getVisitedCount() {
+        return visitedCells.cardinality();
     }
 
-    // method to find shortest path from player position
-    public List<GridSpace> findShortestPathFromPlayer() {
-        GridSpace startSpace = getPlayerGridSpace();
-        GridSpace endSpace = gridSpaces.get(gridSpacesPerRow - 1).get(gridSpacesPerRow - 1); // Assuming end is bottom-right
-        return findShortestPath(startSpace, endSpace);
+    public void clearVisited() {
+        visitedCells.clear();
     }
 
-    private boolean hasWallBetween(GridSpace cell1, GridSpace cell2, String direction) {
-        return cell1.isWall(direction);
+    public int getStartCell() {
+        return walls.indexOf(0, 0);
     }
 
-    private List<GridSpace> reconstructPath(Map<GridSpace, GridSpace> predecessorMap, GridSpace endSpace) {
-        List<GridSpace> path = new ArrayList<>();
-        GridSpace current = endSpace;
+    public int getEndCell() {
+        return walls.indexOf(gridSpacesPerRow - 1, gridSpacesPerRow - 1); // Assuming end is bottom-right
+    }
 
-        while (current != null) {
-            path.add(current);
-            current = predecessorMap.get(current);
+    private List<GridSpace> toGridSpaces(int[] cells) {
+        if (cells == null) {
+            return null;
+        }
+        List<GridSpace> path = new ArrayList<>(cells.length);
+        for (int cell : cells) {
+            path.add(getGridSpace(cell));
         }
-
-        Collections.reverse(path);
         return path;
     }
 
@@ -252,10 +306,13 @@ public class Maze {
         }
     }
 
+    public int getPlayerCell() {
+        return walls.indexOf(playerX, playerY);
+    }
 
     public GridSpace getPlayerGridSpace() {
         if (isValidCell(playerX, playerY)) {
-            return gridSpaces.get(playerX).get(playerY);
+            return new GridSpace(this, playerX, playerY);
         }
         return null;
     }
@@ -266,18 +323,18 @@ public class Maze {
         int newCol = playerY + dx;
 
         if (isValidCell(newRow, newCol)) {
-            GridSpace currentSpace = getPlayerGridSpace();
+            int currentCell = getPlayerCell();
 
-            if (dx == 1 && !currentSpace.isWall("bottom")) { // Moving right
+            if (dx == 1 && !walls.isWall(currentCell, WallGrid.BOTTOM)) { // Moving right
                 playerY = newCol;
                 return true;
-            } else if (dx == -1 && !currentSpace.isWall("top")) { // Moving left
+            } else if (dx == -1 && !walls.isWall(currentCell, WallGrid.TOP)) { // Moving left
                 playerY = newCol;
                 return true;
-            } else if (dy == 1 && !currentSpace.isWall("right")) { // Moving down
+            } else if (dy == 1 && !walls.isWall(currentCell, WallGrid.RIGHT)) { // Moving down
                 playerX = newRow;
                 return true;
-            } else if (dy == -1 && !currentSpace.isWall("left")) { // Moving up
+            } else if (dy == -1 && !walls.isWall(currentCell, WallGrid.LEFT)) { // Moving up
                 playerX = newRow;
                 return true;
             }
@@ -285,35 +342,19 @@ public class Maze {
         return false;
     }
 
-    public int calculateMoveScore(GridSpace currentSpace, List<GridSpace> shortestPath) {
-        if (shortestPath != null && shortestPath.contains(currentSpace)) {
-            return 1; // Positive score for being on the shortest path
-        } else {
-            return -1; // Negative score for being off the shortest path
+    // Moves the player one cell in a WallGrid direction, unless a wall is in the way
+    public boolean movePlayer(int direction) {
+        int cell = getPlayerCell();
+        if (walls.isWall(cell, direction)) {
+            return false;
         }
+        int next = walls.neighborOf(cell, direction);
+        playerX = walls.rowOf(next);
+        playerY = walls.colOf(next);
+        return true;
     }
 
-    private static class Wall {
-        GridSpace cell1;
-        GridSpace cell2;
-
-        public Wall(GridSpace cell1, GridSpace cell2) {
-            this.cell1 = cell1;
-            this.cell2 = cell2;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            Wall wall = (Wall) o;
-            return (cell1.equals(wall.cell1) && cell2.equals(wall.cell2)) ||
-                    (cell1.equals(wall.cell2) && cell2.equals(wall.cell1));
-        }
-
-        @Override
-        public int hashCode() {
-            return cell1.hashCode() + cell2.hashCode();
-        }
+    public int calculateMoveScore(int cell) {
+        return isOnSolutionPath(cell) ? 1 : -1;
     }
 }
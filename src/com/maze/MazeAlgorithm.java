@@ -0,0 +1,23 @@
+package com.maze;
+
+import java.util.function.Supplier;
+
+public enum MazeAlgorithm {
+    PRIM(PrimGenerator::new),
+    KRUSKAL(KruskalGenerator::new),
+    WILSON(WilsonGenerator::new),
+    RECURSIVE_BACKTRACKER(RecursiveBacktrackerGenerator::new),
+    ELLER(EllerGenerator::new),
+    ALDOUS_BRODER(AldousBroderGenerator::new),
+    TILED(TiledGenerator::new);
+
+    private final Supplier<MazeGenerator> factory;
+
+    MazeAlgorithm(Supplier<MazeGenerator> factory) {
+        this.factory = factory;
+    }
+
+    public MazeGenerator create() {
+        return factory.get();
+    }
+}
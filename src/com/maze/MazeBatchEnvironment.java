@@ -0,0 +1,281 @@
+package com.maze;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Steps many maze sessions at once for training agents.  Player positions, scores,
+// step counts and done flags are kept in parallel primitive arrays, one slot per
+// environment, and step() writes into buffers allocated once up front, so stepping
+// allocates nothing.  The rules are the same as GameSession: a newly visited cell
+// scores +1 on the solution path and -1 off it, and reaching the end finishes the
+// episode.
+//
+// An environment whose episode ends is reset within the same step, so its
+// observation is already the first one of the next episode while done is true.
+// With newMazeEachEpisode the reset also generates a fresh maze, which allocates the
+// maze's goal field; otherwise each environment keeps its maze for its lifetime.
+//
+// With more than one thread, environments are split into contiguous shards; the
+// calling thread steps the first shard and parked worker threads step the rest.
+public class MazeBatchEnvironment implements AutoCloseable {
+    public static final int OBSERVATION_SIZE = 4;   // row, col, open directions mask, steps to the end
+
+    // The buffers written by every step.  Environment i's observation starts at
+    // observations[i * OBSERVATION_SIZE].
+    public record Step(int[] observations, float[] rewards, boolean[] done) {}
+
+    private final int envs;
+    private final int size;
+    private final long seed;
+    private final int maxSteps;
+    private final boolean newMazeEachEpisode;
+    private final MazeGenerator[] generators;  // One per shard, since generators keep scratch state
+
+    private final WallGrid[] walls;
+    private final GoalField[] goals;
+    private final BitSet[] solution;
+    private final BitSet[] visited;
+    private final int[] playerCell;
+    private final int[] score;
+    private final int[] steps;
+    private final int[] episode;
+    private final Step buffers;
+
+    private final Thread[] workers;
+    private final AtomicInteger remaining = new AtomicInteger();
+    private volatile int round = 0;
+    private volatile boolean closed = false;
+    private volatile Thread caller;
+    private volatile Throwable failure;
+    private int[] pendingActions;
+
+    // maxSteps cuts off episodes that run too long; they count as done
+    public MazeBatchEnvironment(int envs, int size, long seed, int maxSteps, boolean newMazeEachEpisode, int threads) {
+        if (envs <= 0 || size <= 0 || maxSteps <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("Invalid environment configuration: " + envs + " envs of "
+                    + size + "x" + size + ", " + maxSteps + " max steps, " + threads + " threads");
+        }
+        this.envs = envs;
+        this.size = size;
+        this.seed = seed;
+        this.maxSteps = maxSteps;
+        this.newMazeEachEpisode = newMazeEachEpisode;
+        this.walls = new WallGrid[envs];
+        this.goals = new GoalField[envs];
+        this.solution = new BitSet[envs];
+        this.visited = new BitSet[envs];
+        this.playerCell = new int[envs];
+        this.score = new int[envs];
+        this.steps = new int[envs];
+        this.episode = new int[envs];
+        this.buffers = new Step(new int[envs * OBSERVATION_SIZE], new float[envs], new boolean[envs]);
+
+        int shards = Math.min(threads, envs);
+        this.generators = new MazeGenerator[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            generators[shard] = MazeAlgorithm.PRIM.create();
+        }
+        for (int env = 0; env < envs; env++) {
+            walls[env] = new WallGrid(size, size);
+            solution[env] = new BitSet(size * size);
+            visited[env] = new BitSet(size * size);
+            buildMaze(env, generators[0]);
+            resetPlayer(env);
+        }
+
+        this.workers = new Thread[shards - 1];
+        for (int i = 0; i < workers.length; i++) {
+            int shard = i + 1;
+            workers[i] = new Thread(() -> work(shard), "maze-env-" + shard);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    public int getEnvironmentCount() {
+        return envs;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    // Puts every environment back at the start of its current maze
+    public Step reset() {
+        for (int env = 0; env < envs; env++) {
+            resetPlayer(env);
+            buffers.rewards()[env] = 0;
+            buffers.done()[env] = false;
+        }
+        return buffers;
+    }
+
+    // actions[i] is the WallGrid direction environment i moves in.  The returned buffers
+    // are the same arrays every time and are overwritten by the next step.
+    public Step step(int[] actions) {
+        if (actions.length != envs) {
+            throw new IllegalArgumentException("Expected " + envs + " actions, got " + actions.length);
+        }
+        if (closed) {
+            throw new IllegalStateException("Environment is closed");
+        }
+        if (workers.length == 0) {
+            stepShard(0, actions);
+            return buffers;
+        }
+
+        pendingActions = actions;
+        caller = Thread.currentThread();
+        remaining.set(workers.length);
+        round++;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+        // Even if the caller's shard throws, wait for the workers so none of them is
+        // still writing the buffers or counting down remaining when the next step starts
+        RuntimeException callerFailure = null;
+        try {
+            stepShard(0, actions);
+        } catch (RuntimeException e) {
+            callerFailure = e;
+        } finally {
+            while (remaining.get() != 0) {
+                LockSupport.park(this);
+            }
+        }
+        Throwable error = failure;
+        failure = null;
+        if (callerFailure != null) {
+            if (error != null) {
+                callerFailure.addSuppressed(error);
+            }
+            throw callerFailure;
+        }
+        if (error != null) {
+            throw new IllegalStateException("Environment worker failed", error);
+        }
+        return buffers;
+    }
+
+    public Step getBuffers() {
+        return buffers;
+    }
+
+    public int getScore(int env) {
+        return score[env];
+    }
+
+    public int getEpisode(int env) {
+        return episode[env];
+    }
+
+    public WallGrid getWallGrid(int env) {
+        return walls[env];
+    }
+
+    public GoalField getGoalField(int env) {
+        return goals[env];
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void work(int shard) {
+        int seen = 0;
+        while (true) {
+            while (round == seen && !closed) {
+                LockSupport.park(this);
+            }
+            if (closed) {
+                return;
+            }
+            seen = round;
+            try {
+                stepShard(shard, pendingActions);
+            } catch (Throwable t) {
+                failure = t;
+            }
+            if (remaining.decrementAndGet() == 0) {
+                LockSupport.unpark(caller);
+            }
+        }
+    }
+
+    private void stepShard(int shard, int[] actions) {
+        int shards = workers.length + 1;
+        int from = (int) ((long) envs * shard / shards);
+        int to = (int) ((long) envs * (shard + 1) / shards);
+        for (int env = from; env < to; env++) {
+            stepEnvironment(env, actions[env], generators[shard]);
+        }
+    }
+
+    private void stepEnvironment(int env, int action, MazeGenerator generator) {
+        WallGrid grid = walls[env];
+        int cell = playerCell[env];
+        int reward = 0;
+        if (action >= 0 && action < 4 && !grid.isWall(cell, action)) {
+            cell = grid.neighborOf(cell, action);
+            playerCell[env] = cell;
+            if (!visited[env].get(cell)) {
+                visited[env].set(cell);
+                reward = solution[env].get(cell) ? 1 : -1;
+            }
+        }
+        score[env] += reward;
+        steps[env]++;
+
+        boolean done = cell == goals[env].getGoalCell() || steps[env] >= maxSteps;
+        buffers.rewards()[env] = reward;
+        buffers.done()[env] = done;
+        if (done) {
+            episode[env]++;
+            if (newMazeEachEpisode) {
+                buildMaze(env, generator);
+            }
+            resetPlayer(env);
+        } else {
+            writeObservation(env);
+        }
+    }
+
+    private void buildMaze(int env, MazeGenerator generator) {
+        WallGrid grid = walls[env];
+        generator.generate(grid, new Random(seed + env + (long) episode[env] * envs));
+        GoalField goal = new GoalField(grid, grid.getCellCount() - 1);
+        goals[env] = goal;
+
+        BitSet path = solution[env];
+        path.clear();
+        for (int cell = 0; cell >= 0; cell = goal.nextCell(cell)) {
+            path.set(cell);
+        }
+    }
+
+    private void resetPlayer(int env) {
+        playerCell[env] = 0;
+        score[env] = 0;
+        steps[env] = 0;
+        visited[env].clear();
+        visited[env].set(0);
+        writeObservation(env);
+    }
+
+    private void writeObservation(int env) {
+        WallGrid grid = walls[env];
+        int cell = playerCell[env];
+        int base = env * OBSERVATION_SIZE;
+        int[] observations = buffers.observations();
+        observations[base] = grid.rowOf(cell);
+        observations[base + 1] = grid.colOf(cell);
+        observations[base + 2] = grid.openDirections(cell);
+        observations[base + 3] = goals[env].distance(cell);
+    }
+}
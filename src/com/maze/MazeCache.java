@@ -0,0 +1,105 @@
+package com.maze;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Keeps generated maze topologies keyed by (size, seed, algorithm) so a maze that is
+// asked for again (daily challenges, tournaments) is generated only once.  Entries
+// are evicted least recently used first whenever the total exceeds the byte budget.
+// Safe to share between threads; generation happens outside the lock.
+public class MazeCache {
+    public record Key(int size, long seed, MazeAlgorithm algorithm) {}
+
+    private final long byteBudget;
+    private final LinkedHashMap<Key, MazeTopology> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public MazeCache(long byteBudget) {
+        if (byteBudget <= 0) {
+            throw new IllegalArgumentException("Invalid byte budget: " + byteBudget);
+        }
+        this.byteBudget = byteBudget;
+    }
+
+    public Maze getMaze(float mazeSize, int size, long seed, MazeAlgorithm algorithm) {
+        return new Maze(mazeSize, get(size, seed, algorithm));
+    }
+
+    public MazeTopology get(int size, long seed, MazeAlgorithm algorithm) {
+        Key key = new Key(size, seed, algorithm);
+        synchronized (this) {
+            MazeTopology topology = entries.get(key);
+            if (topology != null) {
+                hits++;
+                return topology;
+            }
+            misses++;
+        }
+
+        MazeTopology topology = MazeTopology.generate(size, seed, algorithm);
+        put(key, topology);
+        return topology;
+    }
+
+    public void put(MazeTopology topology) {
+        put(new Key(topology.getSize(), topology.getSeed(), topology.getAlgorithm()), topology);
+    }
+
+    private synchronized void put(Key key, MazeTopology topology) {
+        // Too big to ever fit; hand it back without caching it
+        if (topology.getMemoryBytes() > byteBudget) {
+            return;
+        }
+        MazeTopology previous = entries.put(key, topology);
+        if (previous != null) {
+            bytes -= previous.getMemoryBytes();
+        }
+        bytes += topology.getMemoryBytes();
+
+        Iterator<Map.Entry<Key, MazeTopology>> eldest = entries.entrySet().iterator();
+        while (bytes > byteBudget && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().getMemoryBytes();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getByteBudget() {
+        return byteBudget;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("MazeCache[%d entries, %,d/%,d bytes, %d hits, %d misses, %d evictions]",
+                entries.size(), bytes, byteBudget, hits, misses, evictions);
+    }
+}
@@ -0,0 +1,164 @@
+package com.maze;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// A level pack: many mazes in one file, each in MazeFile form, with an offset index
+// at the end.  Little endian:
+//
+//     int   magic        "MZCT"
+//     int   version      1
+//     long  count
+//     long  indexOffset
+//     long  reserved
+//     ...   count MazeFile records, each 8 byte aligned
+//     long  offsets[count]
+//
+// Opening maps the whole file read-only, and get(n) is a slice of the mapping, so
+// loading a maze never decodes or regenerates anything.  A single mapping is limited
+// to 2GB.  A 20x20 maze with its distance field takes 1744 bytes including its index
+// entry, so one catalog holds about 1.2 million of them; bigger packs have to be split
+// across several catalog files.
+public final class MazeCatalog implements Closeable {
+    public static final int MAGIC = 0x54435A4D;     // "MZCT" when read as little endian bytes
+    public static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer mapped;
+    private final int count;
+    private final int indexOffset;
+
+    private MazeCatalog(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long fileSize = channel.size();
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Catalog larger than 2GB can't be mapped in one piece: " + fileSize);
+        }
+        this.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (fileSize < HEADER_BYTES || mapped.getInt(0) != MAGIC) {
+            throw new IOException("Not a maze catalog");
+        }
+        if (mapped.getInt(4) != VERSION) {
+            throw new IOException("Unsupported maze catalog version: " + mapped.getInt(4));
+        }
+        long entries = mapped.getLong(8);
+        long index = mapped.getLong(16);
+        if (entries < 0 || index < HEADER_BYTES || index > fileSize || entries > (fileSize - index) / Long.BYTES) {
+            throw new IOException("Maze catalog index is corrupt");
+        }
+        this.count = (int) entries;
+        this.indexOffset = (int) index;
+    }
+
+    public static MazeCatalog open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new MazeCatalog(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static Writer create(Path path) throws IOException {
+        return new Writer(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Maze number n, read in place from the mapping
+    public MazeFile get(int n) {
+        if (n < 0 || n >= count) {
+            throw new IndexOutOfBoundsException("Maze " + n + " of " + count);
+        }
+        long offset = mapped.getLong(indexOffset + n * Long.BYTES);
+        long end = n + 1 < count ? mapped.getLong(indexOffset + (n + 1) * Long.BYTES) : indexOffset;
+        if (offset < HEADER_BYTES || offset > end || end > indexOffset) {
+            throw new IllegalArgumentException("Maze catalog entry " + n + " is corrupt: bytes "
+                    + offset + " to " + end + " outside " + HEADER_BYTES + " to " + indexOffset);
+        }
+        return MazeFile.wrap(mapped.slice((int) offset, (int) (end - offset)));
+    }
+
+    public Maze getMaze(float mazeSize, int n) {
+        return new Maze(mazeSize, get(n));
+    }
+
+    // The mapping itself stays valid until it is garbage collected; Java has no way
+    // to unmap it early
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Appends mazes to a new catalog.  The index is kept in memory and written, along
+    // with the header, when the writer is closed.
+    public static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+        private long[] offsets = new long[1024];
+        private int count = 0;
+        private long position = HEADER_BYTES;
+
+        private Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        // field may be null to leave out the distances.  Returns the maze's number.
+        public int add(WallGrid walls, long seed, GoalField field) throws IOException {
+            int size = MazeFile.encodedSize(walls.getRows(), walls.getCols(), field != null);
+            if (buffer.capacity() < size) {
+                buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            buffer.clear();
+            MazeFile.write(buffer, walls, seed, field);
+            buffer.flip();
+            writeFully(buffer, position);
+
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count] = position;
+            position += size;
+            return count++;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                ByteBuffer index = ByteBuffer.allocate(count * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                index.asLongBuffer().put(offsets, 0, count);
+                writeFully(index, position);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putLong(count).putLong(position).putLong(0);
+                header.flip();
+                writeFully(header, 0);
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void writeFully(ByteBuffer source, long at) throws IOException {
+            while (source.hasRemaining()) {
+                at += channel.write(source, at);
+            }
+        }
+    }
+}
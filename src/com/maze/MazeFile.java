@@ -0,0 +1,196 @@
+package com.maze;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Binary form of a single maze, read in place from a ByteBuffer.  Little endian:
+//
+//     int   magic        "MAZE"
+//     short version      1
+//     short flags        bit 0: a distance field follows the walls
+//     int   rows
+//     int   cols
+//     long  seed
+//     int   goalCell     cell the distance field counts toward, -1 without one
+//     int   reserved
+//     long  walls[(rows * cols + 31) / 32]     2 bits per cell, as in WallGrid
+//     int   distance[rows * cols]              only with flag bit 0
+//
+// The header is 32 bytes and every section is 8 byte aligned, so a MazeFile can be a
+// slice of a larger mapped file (see MazeCatalog) without copying.
+public final class MazeFile {
+    public static final int MAGIC = 0x455A414D;     // "MAZE" when read as little endian bytes
+    public static final short VERSION = 1;
+    public static final int HEADER_BYTES = 32;
+    private static final short HAS_DISTANCES = 1;
+
+    private final ByteBuffer buffer;
+    private final int rows;
+    private final int cols;
+    private final int wordCount;
+    private final boolean hasDistances;
+
+    private MazeFile(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a maze file");
+        }
+        short version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported maze file version: " + version);
+        }
+        this.rows = buffer.getInt(8);
+        this.cols = buffer.getInt(12);
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid grid size: " + rows + "x" + cols);
+        }
+        this.wordCount = wordCount(rows * cols);
+        this.hasDistances = (buffer.getShort(6) & HAS_DISTANCES) != 0;
+        if (buffer.remaining() < encodedSize(rows, cols, hasDistances)) {
+            throw new IllegalArgumentException("Maze file is truncated");
+        }
+    }
+
+    // Reads the maze starting at the buffer's position.  The buffer is not copied, so it
+    // must not change while the MazeFile is in use.
+    public static MazeFile wrap(ByteBuffer buffer) {
+        return new MazeFile(buffer.slice().order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    // Encodes into a new heap buffer.  field may be null to leave out the distances.
+    public static MazeFile encode(WallGrid walls, long seed, GoalField field) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(walls.getRows(), walls.getCols(), field != null));
+        write(buffer, walls, seed, field);
+        buffer.flip();
+        return wrap(buffer);
+    }
+
+    // Writes the maze at the buffer's position and advances past it
+    public static void write(ByteBuffer buffer, WallGrid walls, long seed, GoalField field) {
+        int cellCount = walls.getCellCount();
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        writeHeader(buffer, walls.getRows(), walls.getCols(), seed, field);
+
+        walls.copyWordsTo(buffer.asLongBuffer());
+        buffer.position(buffer.position() + (int) walls.getMemoryBytes());
+        if (field != null) {
+            for (int cell = 0; cell < cellCount; cell++) {
+                buffer.putInt(field.distance(cell));
+            }
+            if ((cellCount & 1) != 0) {
+                buffer.putInt(0);
+            }
+        }
+        buffer.order(order);
+    }
+
+    // Writes just the header at the buffer's position, which must be little endian
+    static void writeHeader(ByteBuffer buffer, int rows, int cols, long seed, GoalField field) {
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort(field != null ? HAS_DISTANCES : 0);
+        buffer.putInt(rows);
+        buffer.putInt(cols);
+        buffer.putLong(seed);
+        buffer.putInt(field != null ? field.getGoalCell() : -1);
+        buffer.putInt(0);
+    }
+
+    public static int encodedSize(int rows, int cols, boolean withDistances) {
+        int cellCount = rows * cols;
+        long size = HEADER_BYTES + (long) wordCount(cellCount) * Long.BYTES;
+        if (withDistances) {
+            // Keep the next maze 8 byte aligned
+            size += ((long) cellCount * Integer.BYTES + 7) & ~7L;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Maze too large to encode: " + rows + "x" + cols);
+        }
+        return (int) size;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getCellCount() {
+        return rows * cols;
+    }
+
+    public long getSeed() {
+        return buffer.getLong(16);
+    }
+
+    public int getGoalCell() {
+        return buffer.getInt(24);
+    }
+
+    public boolean hasDistances() {
+        return hasDistances;
+    }
+
+    public int getEncodedSize() {
+        return encodedSize(rows, cols, hasDistances);
+    }
+
+    // Same meaning as WallGrid.isWall, read straight from the buffer
+    public boolean isWall(int cell, int direction) {
+        switch (direction) {
+            case WallGrid.RIGHT:
+                return cell / cols == rows - 1 || isSet(cell, 1);
+            case WallGrid.LEFT:
+                return cell < cols || isSet(cell - cols, 1);
+            case WallGrid.BOTTOM:
+                return cell % cols == cols - 1 || isSet(cell, 2);
+            case WallGrid.TOP:
+                return cell % cols == 0 || isSet(cell - 1, 2);
+            default:
+                throw new IllegalArgumentException("Invalid direction: " + direction);
+        }
+    }
+
+    // Steps from cell to the goal cell, read straight from the buffer
+    public int distance(int cell) {
+        if (!hasDistances) {
+            throw new IllegalStateException("Maze file has no distance field");
+        }
+        return buffer.getInt(distanceOffset() + cell * Integer.BYTES);
+    }
+
+    // A mutable copy of the walls.  This is one bulk copy of a quarter byte per cell.
+    public WallGrid toWallGrid() {
+        long[] bits = new long[wordCount];
+        buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(HEADER_BYTES).asLongBuffer().get(bits);
+        return new WallGrid(rows, cols, bits);
+    }
+
+    // The stored distance field as a GoalField over walls, which should come from
+    // toWallGrid.  Null when the file has no distances.
+    public GoalField toGoalField(WallGrid walls) {
+        if (!hasDistances) {
+            return null;
+        }
+        int[] distance = new int[getCellCount()];
+        buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(distanceOffset()).asIntBuffer().get(distance);
+        return new GoalField(walls, getGoalCell(), distance);
+    }
+
+    private int distanceOffset() {
+        return HEADER_BYTES + wordCount * Long.BYTES;
+    }
+
+    private boolean isSet(int cell, long mask) {
+        long word = buffer.getLong(HEADER_BYTES + (cell >>> 5) * Long.BYTES);
+        return (word & (mask << ((cell & 31) << 1))) != 0;
+    }
+
+    private static int wordCount(int cellCount) {
+        return (cellCount + 31) >>> 5;
+    }
+}
@@ -0,0 +1,20 @@
+package com.maze;
+
+import java.util.random.RandomGenerator;
+
+// Strategy for carving a perfect maze (a spanning tree of the grid) into a WallGrid.
+public interface MazeGenerator {
+    String getName();
+
+    // Carves passages into walls, which must start with every wall in place.
+    // Returns the peak number of bytes of scratch memory the algorithm used.
+    long carve(WallGrid walls, RandomGenerator random);
+
+    default GenerationStats generate(WallGrid walls, RandomGenerator random) {
+        walls.resetWalls();
+        long start = System.nanoTime();
+        long peakBytes = carve(walls, random);
+        long elapsed = System.nanoTime() - start;
+        return new GenerationStats(getName(), walls.getCellCount(), elapsed, peakBytes);
+    }
+}
@@ -0,0 +1,119 @@
+package com.maze;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Keeps a few ready-made mazes, with their goal fields already built, for each board
+// size so a new game doesn't have to wait on generation.  Taking a maze schedules a
+// replacement on a small pool of background threads.  If a size runs dry, take()
+// falls back to generating on the caller's thread and counts it as a starvation.
+public class MazePool implements AutoCloseable {
+    private final float mazeSize;
+    private final int mazesPerSize;
+    private final ExecutorService executor;
+    private final Map<Integer, ArrayBlockingQueue<Maze>> ready = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> pending = new ConcurrentHashMap<>();
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong starved = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+
+    public MazePool(float mazeSize, int[] sizes, int mazesPerSize, int threads) {
+        if (mazesPerSize <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("Invalid pool configuration: " + mazesPerSize + " mazes per size, " + threads + " threads");
+        }
+        this.mazeSize = mazeSize;
+        this.mazesPerSize = mazesPerSize;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "maze-pool-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+
+        for (int size : sizes) {
+            ready.put(size, new ArrayBlockingQueue<>(mazesPerSize));
+            pending.put(size, new AtomicInteger());
+            refill(size);
+        }
+    }
+
+    // Never blocks on another thread: returns a pooled maze, or builds one right here
+    public Maze take(int size) {
+        served.incrementAndGet();
+        ArrayBlockingQueue<Maze> queue = ready.get(size);
+        Maze maze = queue == null ? null : queue.poll();
+        if (maze == null) {
+            starved.incrementAndGet();
+            maze = build(size);
+        }
+        if (queue != null) {
+            refill(size);
+        }
+        return maze;
+    }
+
+    private void refill(int size) {
+        ArrayBlockingQueue<Maze> queue = ready.get(size);
+        AtomicInteger inFlight = pending.get(size);
+        while (queue.size() + inFlight.get() < mazesPerSize) {
+            inFlight.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    try {
+                        queue.offer(build(size));
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                inFlight.decrementAndGet();
+                return; // Shutting down
+            }
+        }
+    }
+
+    private Maze build(int size) {
+        Maze maze = new Maze(mazeSize, size);
+        maze.isOnSolutionPath(maze.getStartCell()); // Builds the goal field and solution cells
+        generated.incrementAndGet();
+        return maze;
+    }
+
+    public int getReadyCount(int size) {
+        ArrayBlockingQueue<Maze> queue = ready.get(size);
+        return queue == null ? 0 : queue.size();
+    }
+
+    public long getServed() {
+        return served.get();
+    }
+
+    // Number of take() calls that found no ready maze and generated synchronously
+    public long getStarved() {
+        return starved.get();
+    }
+
+    public long getGenerated() {
+        return generated.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MazePool[served %d, starved %d, generated %d]", served.get(), starved.get(), generated.get());
+    }
+}
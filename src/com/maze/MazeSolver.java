@@ -0,0 +1,19 @@
+package com.maze;
+
+// Shortest path search between two cells of a WallGrid.  Implementations keep their
+// scratch arrays between searches and are not thread safe.
+public interface MazeSolver {
+    String getName();
+
+    // Writes the cells from start to end inclusive into path and returns how many
+    // there are, or -1 when end can't be reached.  getCellCount() entries is always enough.
+    int findPath(int startCell, int endCell, int[] path);
+
+    // Same as above, but allocates a right-sized array.  Null when end can't be reached.
+    int[] findPath(int startCell, int endCell);
+
+    // Number of steps from start to end, or -1 when end can't be reached
+    int distance(int startCell, int endCell);
+
+    SolverStats getStats();
+}
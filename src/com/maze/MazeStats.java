@@ -0,0 +1,261 @@
+package com.maze;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Structural numbers for level curation.  A cell's degree is how many open walls it
+// has: dead ends have one, corridor cells two and junctions three or more.  A
+// corridor is a maximal run of degree two cells; corridorHistogram[n] counts the
+// corridors n cells long.  loops is the number of open walls beyond a spanning tree,
+// so 0 for a perfect maze.  solutionLength is the steps from the start to the end
+// cell, and diameter the longest shortest path found by a double sweep, which is
+// exact for perfect mazes and a lower bound for braided ones.  -1 means unreachable.
+public record MazeStats(int cells, int deadEnds, int corridorCells, int junctions, long loops,
+                        int corridors, int longestCorridor, int[] corridorHistogram,
+                        int solutionLength, int diameter) {
+
+    // The histogram is copied in and out so a MazeStats can't be changed after the fact
+    public MazeStats {
+        corridorHistogram = corridorHistogram.clone();
+    }
+
+    @Override
+    public int[] corridorHistogram() {
+        return corridorHistogram.clone();
+    }
+
+    // Corridors exactly length cells long, without copying the histogram
+    public int corridorsOfLength(int length) {
+        return length >= 0 && length < corridorHistogram.length ? corridorHistogram[length] : 0;
+    }
+
+    // Share of cells that are corridor; high values mean long, winding passages
+    public double riverFactor() {
+        return corridorCells / (double) cells;
+    }
+
+    public double deadEndRatio() {
+        return deadEnds / (double) cells;
+    }
+
+    public double meanCorridorLength() {
+        return corridors == 0 ? 0 : corridorCells / (double) corridors;
+    }
+
+    // Start is cell 0 and the end is the last cell, as in Maze
+    public static MazeStats analyze(WallGrid walls) {
+        return new Analyzer().analyze(walls);
+    }
+
+    // One result per grid, in order.  Each worker reuses its scratch arrays across grids.
+    public static MazeStats[] analyzeAll(List<WallGrid> grids, ForkJoinPool pool) {
+        MazeStats[] results = new MazeStats[grids.size()];
+        if (!grids.isEmpty()) {
+            pool.invoke(new AnalyzeTask(grids, results, 0, grids.size()));
+        }
+        return results;
+    }
+
+    // Records compare arrays by reference, so the histogram is compared by content here
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof MazeStats other
+                && cells == other.cells && deadEnds == other.deadEnds && corridorCells == other.corridorCells
+                && junctions == other.junctions && loops == other.loops && corridors == other.corridors
+                && longestCorridor == other.longestCorridor && Arrays.equals(corridorHistogram, other.corridorHistogram)
+                && solutionLength == other.solutionLength && diameter == other.diameter;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(cells, deadEnds, corridorCells, junctions, loops, corridors, longestCorridor,
+                solutionLength, diameter);
+        return 31 * result + Arrays.hashCode(corridorHistogram);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d cells: %,d dead ends (%.1f%%), %,d junctions, %,d loops, %,d corridors "
+                        + "(mean %.1f, longest %,d, river %.2f), solution %,d, diameter %,d",
+                cells, deadEnds, 100 * deadEndRatio(), junctions, loops, corridors, meanCorridorLength(),
+                longestCorridor, riverFactor(), solutionLength, diameter);
+    }
+
+    @SuppressWarnings("serial") // Fork/join tasks are never serialized
+    private static final class AnalyzeTask extends RecursiveAction {
+        private static final int GRIDS_PER_TASK = 16;
+
+        private final List<WallGrid> grids;
+        private final MazeStats[] results;
+        private final int from;
+        private final int to;
+
+        AnalyzeTask(List<WallGrid> grids, MazeStats[] results, int from, int to) {
+            this.grids = grids;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GRIDS_PER_TASK) {
+                Analyzer analyzer = new Analyzer();
+                for (int i = from; i < to; i++) {
+                    results[i] = analyzer.analyze(grids.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new AnalyzeTask(grids, results, from, middle), new AnalyzeTask(grids, results, middle, to));
+        }
+    }
+
+    // Scratch arrays for one thread, grown to the largest grid seen
+    private static final class Analyzer {
+        private int[] distance = new int[0];
+        private int[] queue = new int[0];
+        private byte[] degree = new byte[0];
+        private int[] histogram = new int[16];
+
+        MazeStats analyze(WallGrid walls) {
+            int cellCount = walls.getCellCount();
+            if (distance.length < cellCount) {
+                distance = new int[cellCount];
+                queue = new int[cellCount];
+                degree = new byte[cellCount];
+            }
+            Arrays.fill(histogram, 0);
+
+            // Pass 1: degrees
+            int deadEnds = 0;
+            int corridorCells = 0;
+            int junctions = 0;
+            long openWalls = 0;
+            for (int cell = 0; cell < cellCount; cell++) {
+                int count = Integer.bitCount(walls.openDirections(cell));
+                degree[cell] = (byte) count;
+                openWalls += count;
+                if (count == 1) {
+                    deadEnds++;
+                } else if (count == 2) {
+                    corridorCells++;
+                } else if (count >= 3) {
+                    junctions++;
+                }
+            }
+
+            // Pass 2: corridors.  Every corridor is walked once from one of its ends,
+            // found as a degree two cell with a neighbor that isn't; degree is cleared
+            // to 0 on cells already walked.
+            int corridors = 0;
+            int longest = 0;
+            int walked = 0;
+            for (int cell = 0; cell < cellCount; cell++) {
+                if (degree[cell] != 2 || !isCorridorEnd(walls, cell)) {
+                    continue;
+                }
+                int length = walkCorridor(walls, cell);
+                walked += length;
+                corridors++;
+                longest = Math.max(longest, length);
+                count(length);
+            }
+            // Whatever is left is a closed ring of corridor cells
+            if (walked < corridorCells) {
+                for (int cell = 0; cell < cellCount; cell++) {
+                    if (degree[cell] == 2) {
+                        int length = walkCorridor(walls, cell);
+                        corridors++;
+                        longest = Math.max(longest, length);
+                        count(length);
+                    }
+                }
+            }
+
+            // Passes 3 and 4: breadth first sweeps for the solution length and diameter
+            int end = cellCount - 1;
+            int farthest = sweep(walls, 0);
+            int solutionLength = distance[end];
+            int diameter = distance[sweep(walls, farthest)];
+
+            return new MazeStats(cellCount, deadEnds, corridorCells, junctions,
+                    openWalls / 2 - (cellCount - 1), corridors, longest,
+                    Arrays.copyOf(histogram, longest + 1), solutionLength, diameter);
+        }
+
+        private boolean isCorridorEnd(WallGrid walls, int cell) {
+            int open = walls.openDirections(cell);
+            while (open != 0) {
+                int direction = Integer.numberOfTrailingZeros(open);
+                open &= open - 1;
+                if (degree[walls.neighborOf(cell, direction)] != 2) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Follows degree two cells from start until the run ends, clearing their degree
+        private int walkCorridor(WallGrid walls, int start) {
+            int length = 0;
+            int cell = start;
+            while (cell >= 0) {
+                degree[cell] = 0;
+                length++;
+                int next = -1;
+                int open = walls.openDirections(cell);
+                while (open != 0) {
+                    int direction = Integer.numberOfTrailingZeros(open);
+                    open &= open - 1;
+                    int neighbor = walls.neighborOf(cell, direction);
+                    if (degree[neighbor] == 2) {
+                        next = neighbor;
+                        break;
+                    }
+                }
+                cell = next;
+            }
+            return length;
+        }
+
+        private void count(int length) {
+            if (length >= histogram.length) {
+                histogram = Arrays.copyOf(histogram, Math.max(length + 1, histogram.length * 2));
+            }
+            histogram[length]++;
+        }
+
+        // Breadth first search from start, leaving distances in distance.  Returns the
+        // farthest cell reached.
+        private int sweep(WallGrid walls, int start) {
+            int cellCount = walls.getCellCount();
+            Arrays.fill(distance, 0, cellCount, -1);
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            distance[start] = 0;
+            int cell = start;
+            while (head < tail) {
+                cell = queue[head++];
+                int open = walls.openDirections(cell);
+                while (open != 0) {
+                    int direction = Integer.numberOfTrailingZeros(open);
+                    open &= open - 1;
+                    int neighbor = walls.neighborOf(cell, direction);
+                    if (distance[neighbor] < 0) {
+                        distance[neighbor] = distance[cell] + 1;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+            return cell;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.maze;
+
+import java.util.Random;
+
+// Immutable snapshot of a square maze's walls, along with how it was made.  Cheap to
+// keep around (a quarter byte per cell) and to turn back into a Maze.
+public final class MazeTopology {
+    private final int size;
+    private final long seed;
+    private final MazeAlgorithm algorithm;
+    private final long[] bits;
+
+    private MazeTopology(int size, long seed, MazeAlgorithm algorithm, long[] bits) {
+        this.size = size;
+        this.seed = seed;
+        this.algorithm = algorithm;
+        this.bits = bits;
+    }
+
+    public static MazeTopology generate(int size, long seed, MazeAlgorithm algorithm) {
+        WallGrid walls = new WallGrid(size, size);
+        algorithm.create().generate(walls, new Random(seed));
+        return new MazeTopology(size, seed, algorithm, walls.getBits());
+    }
+
+    public static MazeTopology of(WallGrid walls, long seed, MazeAlgorithm algorithm) {
+        if (walls.getRows() != walls.getCols()) {
+            throw new IllegalArgumentException("Maze must be square: " + walls.getRows() + "x" + walls.getCols());
+        }
+        return new MazeTopology(walls.getRows(), seed, algorithm, walls.getBits().clone());
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public MazeAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    // A fresh, mutable copy of the walls
+    public WallGrid toWallGrid() {
+        return new WallGrid(size, size, bits.clone());
+    }
+
+    // Approximate heap footprint: the wall bits plus object headers
+    public long getMemoryBytes() {
+        return (long) bits.length * Long.BYTES + 64;
+    }
+}
@@ -0,0 +1,124 @@
+package com.maze;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.util.Objects;
+
+// Breadth first search over an OffHeapWallStore, with long cell indices and all of
+// its scratch in native memory: one visited bit per cell and a ring buffer queue that
+// grows to the widest frontier seen.  Only distances are reported, since parent links
+// for a path would take 8 bytes per cell against the walls' quarter byte.  Close it to
+// free the scratch.  Not thread safe; use one OffHeapSearch per thread.
+public final class OffHeapSearch implements AutoCloseable {
+    private static final long INITIAL_QUEUE_CELLS = 1 << 16;
+
+    private final OffHeapWallStore walls;
+    private final long visitedBytes;
+    private long visited;           // Bit set over every cell; 0 once closed
+    private long queue;             // Ring buffer of cells, indexed by position & (capacity - 1)
+    private long capacity = INITIAL_QUEUE_CELLS;
+    private long expanded = 0;
+
+    public OffHeapSearch(OffHeapWallStore walls) {
+        this.walls = walls;
+        this.visitedBytes = ((walls.getCellCount() + 63) >>> 6) * Long.BYTES;
+        this.visited = MemoryUtil.nmemAllocChecked(visitedBytes);
+        this.queue = MemoryUtil.nmemAllocChecked(capacity * Long.BYTES);
+    }
+
+    // Steps along the shortest path between two cells, or -1 if they aren't connected
+    public long distance(long startCell, long endCell) {
+        if (visited == 0) {
+            throw new IllegalStateException("Search is closed");
+        }
+        Objects.checkIndex(startCell, walls.getCellCount());
+        Objects.checkIndex(endCell, walls.getCellCount());
+        MemoryUtil.memSet(visited, 0, visitedBytes);
+
+        long head = 0;
+        long tail = 0;
+        put(tail++, startCell);
+        markVisited(startCell);
+
+        // Every cell before levelEnd is depth steps from the start
+        long levelEnd = tail;
+        long depth = 0;
+        while (head < tail) {
+            if (head == levelEnd) {
+                depth++;
+                levelEnd = tail;
+            }
+            long cell = get(head++);
+            if (cell == endCell) {
+                expanded += head;
+                return depth;
+            }
+
+            int open = walls.openDirections(cell);
+            while (open != 0) {
+                int direction = Integer.numberOfTrailingZeros(open);
+                open &= open - 1;
+                long neighbor = walls.neighborOf(cell, direction);
+                if (!isVisited(neighbor)) {
+                    markVisited(neighbor);
+                    if (tail - head == capacity) {
+                        grow(head, tail);
+                    }
+                    put(tail++, neighbor);
+                }
+            }
+        }
+
+        expanded += head;
+        return -1;
+    }
+
+    // Total cells taken off the queue over every search so far
+    public long getExpandedCount() {
+        return expanded;
+    }
+
+    // Native bytes held right now: the visited bits and the queue at its current size
+    public long getMemoryBytes() {
+        return visitedBytes + capacity * Long.BYTES;
+    }
+
+    @Override
+    public void close() {
+        if (visited != 0) {
+            MemoryUtil.nmemFree(visited);
+            MemoryUtil.nmemFree(queue);
+            visited = 0;
+            queue = 0;
+        }
+    }
+
+    private boolean isVisited(long cell) {
+        return (MemoryUtil.memGetLong(visited + ((cell >>> 6) << 3)) & (1L << cell)) != 0;
+    }
+
+    private void markVisited(long cell) {
+        long at = visited + ((cell >>> 6) << 3);
+        MemoryUtil.memPutLong(at, MemoryUtil.memGetLong(at) | (1L << cell));
+    }
+
+    private long get(long position) {
+        return MemoryUtil.memGetLong(queue + ((position & (capacity - 1)) << 3));
+    }
+
+    private void put(long position, long cell) {
+        MemoryUtil.memPutLong(queue + ((position & (capacity - 1)) << 3), cell);
+    }
+
+    // Doubles the queue, moving the waiting cells to their slots under the new mask
+    private void grow(long head, long tail) {
+        long oldQueue = queue;
+        long oldMask = capacity - 1;
+        capacity *= 2;
+        queue = MemoryUtil.nmemAllocChecked(capacity * Long.BYTES);
+        for (long position = head; position < tail; position++) {
+            put(position, MemoryUtil.memGetLong(oldQueue + ((position & oldMask) << 3)));
+        }
+        MemoryUtil.nmemFree(oldQueue);
+    }
+}
@@ -0,0 +1,384 @@
+package com.maze;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+// Packed walls outside the Java heap, for boards too big for a WallGrid.  The bits are
+// laid out as in WallGrid, 2 per cell at index = row * cols + col, but cells are
+// addressed with longs: a 50000x50000 board has 2.5 billion cells and 625MB of walls.
+// The memory is either allocated natively or mapped from a file.  A file is laid out
+// as a MazeFile without distances and can be reopened with open(); MazeFile itself
+// can only read it while the board fits int cell indices.
+//
+// EllerGenerator generates into a store one row at a time and OffHeapSearch runs
+// breadth first searches over it, both with their scratch off the heap as well.  A
+// store small enough for int cell indices can also be used through getWalls() as a
+// WallGrid, with every generator and solver, though those keep O(cells) scratch arrays
+// on the heap.
+//
+// Everything is only valid until close(); after that the store and its grid throw
+// instead of touching freed memory.  Not thread safe.
+public final class OffHeapWallStore implements AutoCloseable {
+    private static final long RIGHT_BIT = 1L;
+    private static final long BOTTOM_BIT = 2L;
+    // Files are mapped 1GB at a time, since a single mapping can't pass 2GB
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_BYTES = 1L << CHUNK_SHIFT;
+    private static final int CHUNK_WORDS_SHIFT = CHUNK_SHIFT - 3;
+    private static final long CHUNK_WORDS_MASK = (1L << CHUNK_WORDS_SHIFT) - 1;
+
+    private final int rows;
+    private final int cols;
+    private final long cellCount;
+    private final long wordCount;
+    private final long address;                 // Native allocation, 0 when mapped from a file
+    private final FileChannel channel;          // Null when allocated natively
+    private final MappedByteBuffer[] mapped;    // Kept reachable so the file stays mapped
+    private long[] chunks;                      // Address of each 1GB of words; null once closed
+    private final WallGrid walls;               // Null when the cells don't fit int indices
+
+    private OffHeapWallStore(int rows, int cols, long address, FileChannel channel, MappedByteBuffer[] mapped) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cellCount = (long) rows * cols;
+        this.wordCount = wordCount(rows, cols);
+        this.address = address;
+        this.channel = channel;
+        this.mapped = mapped;
+
+        this.chunks = new long[(int) ((wordCount + CHUNK_WORDS_MASK) >>> CHUNK_WORDS_SHIFT)];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = mapped != null ? MemoryUtil.memAddress(mapped[i]) : address + i * CHUNK_BYTES;
+        }
+
+        if (cellCount <= Integer.MAX_VALUE) {
+            // At most 512MB of words, so always within the first chunk
+            int bytes = (int) (wordCount * Long.BYTES);
+            ByteBuffer words = mapped != null ? mapped[0].slice(0, bytes) : MemoryUtil.memByteBuffer(address, bytes);
+            this.walls = new WallGrid(rows, cols, words);
+        } else {
+            this.walls = null;
+        }
+    }
+
+    // Natively allocated memory with every wall in place
+    public static OffHeapWallStore allocate(int rows, int cols) {
+        checkSize(rows, cols);
+        long address = MemoryUtil.nmemAlignedAllocChecked(Long.BYTES, wordCount(rows, cols) * Long.BYTES);
+        OffHeapWallStore store = new OffHeapWallStore(rows, cols, address, null, null);
+        store.resetWalls();
+        return store;
+    }
+
+    // A new file, replacing any existing one, with every wall in place
+    public static OffHeapWallStore create(Path path, int rows, int cols, long seed) throws IOException {
+        checkSize(rows, cols);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(MazeFile.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            MazeFile.writeHeader(header, rows, cols, seed, null);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            OffHeapWallStore store = new OffHeapWallStore(rows, cols, 0, channel, map(channel, rows, cols));
+            store.resetWalls();
+            return store;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Maps a file written by create() or MazeFile, keeping its walls.  Any distance
+    // field in the file is left alone and goes stale if the walls are changed.
+    public static OffHeapWallStore open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(MazeFile.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    break;
+                }
+            }
+            if (header.hasRemaining() || header.getInt(0) != MazeFile.MAGIC) {
+                throw new IOException("Not a maze file: " + path);
+            }
+            if (header.getShort(4) != MazeFile.VERSION) {
+                throw new IOException("Unsupported maze file version: " + header.getShort(4));
+            }
+            int rows = header.getInt(8);
+            int cols = header.getInt(12);
+            if (rows <= 0 || cols <= 0) {
+                throw new IOException("Invalid grid size: " + rows + "x" + cols);
+            }
+            if (channel.size() < MazeFile.HEADER_BYTES + wordCount(rows, cols) * Long.BYTES) {
+                throw new IOException("Maze file is truncated: " + path);
+            }
+            return new OffHeapWallStore(rows, cols, 0, channel, map(channel, rows, cols));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // The store as a WallGrid, for boards with at most Integer.MAX_VALUE cells.  Walls
+    // removed through the store don't bump the grid's mod count.
+    public WallGrid getWalls() {
+        checkOpen();
+        if (walls == null) {
+            throw new IllegalStateException("A " + rows + "x" + cols + " board is too large for int cell indices");
+        }
+        return walls;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public long getCellCount() {
+        return cellCount;
+    }
+
+    public long indexOf(int row, int col) {
+        return (long) row * cols + col;
+    }
+
+    public int rowOf(long cell) {
+        return (int) (cell / cols);
+    }
+
+    public int colOf(long cell) {
+        return (int) (cell % cols);
+    }
+
+    // Index of the cell on the other side of the given wall.  Only meaningful
+    // when that wall is not on the outside edge of the grid.
+    public long neighborOf(long cell, int direction) {
+        switch (direction) {
+            case WallGrid.RIGHT:
+                return cell + cols;
+            case WallGrid.LEFT:
+                return cell - cols;
+            case WallGrid.BOTTOM:
+                return cell + 1;
+            case WallGrid.TOP:
+                return cell - 1;
+            default:
+                throw new IllegalArgumentException("Invalid direction: " + direction);
+        }
+    }
+
+    public void resetWalls() {
+        long[] chunks = checkOpen();
+        long remaining = wordCount * Long.BYTES;
+        for (long chunk : chunks) {
+            MemoryUtil.memSet(chunk, 0xFF, Math.min(remaining, CHUNK_BYTES));
+            remaining -= CHUNK_BYTES;
+        }
+    }
+
+    public boolean isWall(long cell, int direction) {
+        Objects.checkIndex(cell, cellCount);
+        switch (direction) {
+            case WallGrid.RIGHT:
+                return cell / cols == rows - 1 || isSet(cell, RIGHT_BIT);
+            case WallGrid.LEFT:
+                return cell < cols || isSet(cell - cols, RIGHT_BIT);
+            case WallGrid.BOTTOM:
+                return cell % cols == cols - 1 || isSet(cell, BOTTOM_BIT);
+            case WallGrid.TOP:
+                return cell % cols == 0 || isSet(cell - 1, BOTTOM_BIT);
+            default:
+                throw new IllegalArgumentException("Invalid direction: " + direction);
+        }
+    }
+
+    // Outside walls are never removed, so removing one is a no-op
+    public void removeWall(long cell, int direction) {
+        Objects.checkIndex(cell, cellCount);
+        switch (direction) {
+            case WallGrid.RIGHT:
+                if (cell / cols < rows - 1) clear(cell, RIGHT_BIT);
+                break;
+            case WallGrid.LEFT:
+                if (cell >= cols) clear(cell - cols, RIGHT_BIT);
+                break;
+            case WallGrid.BOTTOM:
+                if (cell % cols < cols - 1) clear(cell, BOTTOM_BIT);
+                break;
+            case WallGrid.TOP:
+                if (cell % cols > 0) clear(cell - 1, BOTTOM_BIT);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid direction: " + direction);
+        }
+    }
+
+    // Bit d is set when the wall in direction d is open, as in WallGrid
+    public int openDirections(long cell) {
+        Objects.checkIndex(cell, cellCount);
+        long row = cell / cols;
+        long col = cell - row * cols;
+        int open = 0;
+        if (col > 0 && !isSet(cell - 1, BOTTOM_BIT)) open |= 1 << WallGrid.TOP;
+        if (col < cols - 1 && !isSet(cell, BOTTOM_BIT)) open |= 1 << WallGrid.BOTTOM;
+        if (row > 0 && !isSet(cell - cols, RIGHT_BIT)) open |= 1 << WallGrid.LEFT;
+        if (row < rows - 1 && !isSet(cell, RIGHT_BIT)) open |= 1 << WallGrid.RIGHT;
+        return open;
+    }
+
+    // Removes every wall the row has open, a word at a time.  Rows only ever open
+    // walls, so the store should start out reset.
+    public void writeRow(WallRow row) {
+        if (row.getWidth() != cols || row.getIndex() < 0 || row.getIndex() >= rows) {
+            throw new IllegalArgumentException("Row " + row.getIndex() + " of width " + row.getWidth()
+                    + " doesn't fit a " + rows + "x" + cols + " board");
+        }
+        long[] bits = row.getBits();
+        long first = row.getIndex() * cols;
+        int shift = (int) (first & 31) << 1;
+        long word = first >>> 5;
+        // Bits past the end of the row are set, so they leave the next row alone
+        for (long rowWord : bits) {
+            andWord(word, (rowWord << shift) | ~(-1L << shift));
+            if (shift != 0 && word + 1 < wordCount) {
+                andWord(word + 1, (rowWord >>> (64 - shift)) | (-1L << shift));
+            }
+            word++;
+        }
+    }
+
+    // Walks the board one row at a time, in the same form as WallGrid.rows()
+    public Iterator<WallRow> rows() {
+        return new Iterator<>() {
+            private final WallRow row = new WallRow(cols);
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < rows;
+            }
+
+            @Override
+            public WallRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                row.reset(next, next == rows - 1);
+                long rowStart = (long) next * cols;
+                for (int col = 0; col < cols; col++) {
+                    if (!isSet(rowStart + col, RIGHT_BIT)) {
+                        row.removeWall(col, WallGrid.RIGHT);
+                    }
+                    if (!isSet(rowStart + col, BOTTOM_BIT)) {
+                        row.removeWall(col, WallGrid.BOTTOM);
+                    }
+                }
+                next++;
+                return row;
+            }
+        };
+    }
+
+    public long getMemoryBytes() {
+        return wordCount * Long.BYTES;
+    }
+
+    public boolean isFileBacked() {
+        return channel != null;
+    }
+
+    // Flushes the walls of a file-backed store to disk; a no-op otherwise
+    public void force() {
+        if (mapped != null) {
+            for (MappedByteBuffer chunk : mapped) {
+                chunk.force();
+            }
+        }
+    }
+
+    // Frees native memory, or flushes and closes the file.  The mapping of a file
+    // stays around until it is garbage collected, since Java can't unmap it early.
+    @Override
+    public void close() throws IOException {
+        if (chunks == null) {
+            return;
+        }
+        chunks = null;
+        if (walls != null) {
+            walls.detach();
+        }
+        if (channel != null) {
+            try {
+                force();
+            } finally {
+                channel.close();
+            }
+        } else {
+            MemoryUtil.nmemAlignedFree(address);
+        }
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, int rows, int cols) throws IOException {
+        long bytes = wordCount(rows, cols) * Long.BYTES;
+        MappedByteBuffer[] mapped = new MappedByteBuffer[(int) ((bytes + CHUNK_BYTES - 1) >>> CHUNK_SHIFT)];
+        for (int i = 0; i < mapped.length; i++) {
+            long offset = i * CHUNK_BYTES;
+            mapped[i] = channel.map(FileChannel.MapMode.READ_WRITE, MazeFile.HEADER_BYTES + offset,
+                    Math.min(CHUNK_BYTES, bytes - offset));
+            mapped[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return mapped;
+    }
+
+    private static void checkSize(int rows, int cols) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Invalid grid size: " + rows + "x" + cols);
+        }
+    }
+
+    private static long wordCount(int rows, int cols) {
+        return ((long) rows * cols + 31) >>> 5;
+    }
+
+    private long[] checkOpen() {
+        long[] chunks = this.chunks;
+        if (chunks == null) {
+            throw new IllegalStateException("Wall store is closed");
+        }
+        return chunks;
+    }
+
+    private long wordAddress(long word) {
+        return checkOpen()[(int) (word >>> CHUNK_WORDS_SHIFT)] + ((word & CHUNK_WORDS_MASK) << 3);
+    }
+
+    private boolean isSet(long cell, long mask) {
+        return (MemoryUtil.memGetLong(wordAddress(cell >>> 5)) & (mask << ((cell & 31) << 1))) != 0;
+    }
+
+    private void clear(long cell, long mask) {
+        andWord(cell >>> 5, ~(mask << ((cell & 31) << 1)));
+    }
+
+    private void andWord(long word, long mask) {
+        long at = wordAddress(word);
+        MemoryUtil.memPutLong(at, MemoryUtil.memGetLong(at) & mask);
+    }
+}
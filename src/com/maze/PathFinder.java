@@ -0,0 +1,144 @@
+package com.maze;
+
+import java.util.Arrays;
+
+// Breadth first search over a WallGrid that allocates nothing once constructed.
+// The queue, parent and visited arrays are sized to the grid and reused by every
+// search; visited cells are marked with a per-search stamp so nothing has to be
+// cleared between searches.  Not thread safe; use one PathFinder per thread.
+public final class PathFinder implements MazeSolver {
+    private final WallGrid walls;
+    private final int[] queue;      // Every cell is enqueued at most once, so no wrap-around is needed
+    private final int[] parent;
+    private final int[] visited;    // Holds the stamp of the search that last reached each cell
+    private int stamp = 0;
+    private long expanded = 0;
+    private long queries = 0;
+    private long nanos = 0;
+
+    public PathFinder(WallGrid walls) {
+        int cellCount = walls.getCellCount();
+        this.walls = walls;
+        this.queue = new int[cellCount];
+        this.parent = new int[cellCount];
+        this.visited = new int[cellCount];
+    }
+
+    @Override
+    public String getName() {
+        return "bfs";
+    }
+
+    @Override
+    public int findPath(int startCell, int endCell, int[] path) {
+        if (!search(startCell, endCell)) {
+            return -1;
+        }
+
+        int length = 1;
+        for (int current = endCell; current != startCell; current = parent[current]) {
+            length++;
+        }
+        if (length > path.length) {
+            throw new IllegalArgumentException("Path of " + length + " cells doesn't fit in " + path.length);
+        }
+
+        int current = endCell;
+        for (int i = length - 1; i >= 0; i--) {
+            path[i] = current;
+            current = parent[current];
+        }
+        return length;
+    }
+
+    @Override
+    public int[] findPath(int startCell, int endCell) {
+        int steps = distance(startCell, endCell);
+        if (steps < 0) {
+            return null;
+        }
+        int[] path = new int[steps + 1];
+        int current = endCell;
+        for (int i = steps; i >= 0; i--) {
+            path[i] = current;
+            current = parent[current];
+        }
+        return path;
+    }
+
+    @Override
+    public int distance(int startCell, int endCell) {
+        if (!search(startCell, endCell)) {
+            return -1;
+        }
+        int steps = 0;
+        for (int current = endCell; current != startCell; current = parent[current]) {
+            steps++;
+        }
+        return steps;
+    }
+
+    // Total cells taken off the queue over every search so far
+    public long getExpandedCount() {
+        return expanded;
+    }
+
+    @Override
+    public SolverStats getStats() {
+        return new SolverStats(getName(), queries, expanded, nanos);
+    }
+
+    public long getMemoryBytes() {
+        return 3L * queue.length * Integer.BYTES;
+    }
+
+    private boolean search(int startCell, int endCell) {
+        long start = System.nanoTime();
+        boolean found = bfs(startCell, endCell);
+        nanos += System.nanoTime() - start;
+        queries++;
+        return found;
+    }
+
+    private boolean bfs(int startCell, int endCell) {
+        nextStamp();
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = startCell;
+        visited[startCell] = stamp;
+        parent[startCell] = startCell;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            if (cell == endCell) {
+                expanded += head;
+                return true;
+            }
+
+            int open = walls.openDirections(cell);
+            while (open != 0) {
+                int direction = Integer.numberOfTrailingZeros(open);
+                open &= open - 1;
+                int neighbor = walls.neighborOf(cell, direction);
+                if (visited[neighbor] != stamp) {
+                    visited[neighbor] = stamp;
+                    parent[neighbor] = cell;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+
+        expanded += head;
+        return false;
+    }
+
+    private void nextStamp() {
+        stamp++;
+        if (stamp == 0) {
+            // Wrapped around after 2^32 searches; old stamps could collide, so start over
+            Arrays.fill(visited, 0);
+            stamp = 1;
+        }
+    }
+}
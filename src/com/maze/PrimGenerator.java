@@ -0,0 +1,93 @@
+package com.maze;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.random.RandomGenerator;
+
+// Randomized Prim's algorithm
+public class PrimGenerator implements MazeGenerator {
+    private int[] frontier;
+    private int frontierSize;
+
+    @Override
+    public String getName() {
+        return "prim";
+    }
+
+    @Override
+    public long carve(WallGrid walls, RandomGenerator random) {
+        BitSet visited = new BitSet(walls.getCellCount());
+
+        int startCell = walls.indexOf(0, 0);
+        visited.set(startCell);
+
+        // The frontier holds encoded wall ids (see encodeWall).  A wall is only
+        // pushed from its visited side while the far side is unvisited, and that
+        // can happen once at most, so the frontier never holds duplicates.
+        frontier = new int[Math.max(16, (walls.getRows() + walls.getCols()) * 2)];
+        frontierSize = 0;
+        addFrontierWalls(walls, startCell, visited);
+
+        while (frontierSize > 0) {
+            // Swap the last wall into the picked slot, so removal is O(1)
+            int randomIndex = random.nextInt(frontierSize);
+            int wall = frontier[randomIndex];
+            frontier[randomIndex] = frontier[--frontierSize];
+
+            int cell = wall >>> 1;
+            int direction = (wall & 1) == 0 ? WallGrid.RIGHT : WallGrid.BOTTOM;
+            int neighbor = walls.neighborOf(cell, direction);
+
+            int nextCell;
+            if (!visited.get(cell)) {
+                nextCell = cell;
+            } else if (!visited.get(neighbor)) {
+                nextCell = neighbor;
+            } else {
+                continue;
+            }
+
+            walls.removeWall(cell, direction);
+            visited.set(nextCell);
+            addFrontierWalls(walls, nextCell, visited);
+        }
+
+        long peakBytes = GenerationStats.bitSetBytes(walls.getCellCount()) + (long) frontier.length * Integer.BYTES;
+        frontier = null;
+        return peakBytes;
+    }
+
+    private void addFrontierWalls(WallGrid walls, int cell, BitSet visited) {
+        int cols = walls.getCols();
+        int row = walls.rowOf(cell);
+        int col = walls.colOf(cell);
+
+        // Check neighbors
+        if (row > 0 && !visited.get(cell - cols)) {
+            pushFrontierWall(encodeWall(cell - cols, WallGrid.RIGHT));
+        }
+        if (row < walls.getRows() - 1 && !visited.get(cell + cols)) {
+            pushFrontierWall(encodeWall(cell, WallGrid.RIGHT));
+        }
+        if (col > 0 && !visited.get(cell - 1)) {
+            pushFrontierWall(encodeWall(cell - 1, WallGrid.BOTTOM));
+        }
+        if (col < cols - 1 && !visited.get(cell + 1)) {
+            pushFrontierWall(encodeWall(cell, WallGrid.BOTTOM));
+        }
+    }
+
+    private void pushFrontierWall(int wall) {
+        if (frontierSize == frontier.length) {
+            frontier = Arrays.copyOf(frontier, frontier.length * 2);
+        }
+        frontier[frontierSize++] = wall;
+    }
+
+    // Every interior wall is the right or bottom wall of exactly one cell, so a
+    // wall is encoded as that cell's index shifted left with the low bit picking
+    // right (0) or bottom (1).  Decoded with an unsigned shift.
+    static int encodeWall(int cell, int direction) {
+        return (cell << 1) | (direction == WallGrid.BOTTOM ? 1 : 0);
+    }
+}
@@ -0,0 +1,50 @@
+package com.maze;
+
+import java.util.BitSet;
+import java.util.random.RandomGenerator;
+
+// Depth first "recursive" backtracker, driven by an explicit int stack so deep
+// mazes can't overflow the call stack.
+public class RecursiveBacktrackerGenerator implements MazeGenerator {
+
+    @Override
+    public String getName() {
+        return "recursive-backtracker";
+    }
+
+    @Override
+    public long carve(WallGrid walls, RandomGenerator random) {
+        int cellCount = walls.getCellCount();
+        BitSet visited = new BitSet(cellCount);
+        int[] stack = new int[cellCount];
+        int[] options = new int[4];
+        int top = 0;
+
+        stack[top++] = 0;
+        visited.set(0);
+
+        while (top > 0) {
+            int cell = stack[top - 1];
+
+            int count = 0;
+            for (int direction = 0; direction < 4; direction++) {
+                if (walls.hasNeighbor(cell, direction) && !visited.get(walls.neighborOf(cell, direction))) {
+                    options[count++] = direction;
+                }
+            }
+
+            if (count == 0) {
+                top--;
+                continue;
+            }
+
+            int direction = options[random.nextInt(count)];
+            int next = walls.neighborOf(cell, direction);
+            walls.removeWall(cell, direction);
+            visited.set(next);
+            stack[top++] = next;
+        }
+
+        return GenerationStats.bitSetBytes(cellCount) + (long) cellCount * Integer.BYTES;
+    }
+}
@@ -0,0 +1,26 @@
+package com.maze;
+
+// A GameClock that only moves when told to
+public final class SimulatedClock implements GameClock {
+    private double now;
+
+    public SimulatedClock() {
+        this(0);
+    }
+
+    public SimulatedClock(double start) {
+        this.now = start;
+    }
+
+    @Override
+    public double now() {
+        return now;
+    }
+
+    public void advance(double seconds) {
+        if (seconds < 0) {
+            throw new IllegalArgumentException("Clock can't go backwards: " + seconds);
+        }
+        now += seconds;
+    }
+}
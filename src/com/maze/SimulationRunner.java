@@ -0,0 +1,129 @@
+package com.maze;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+// Plays many headless games at once for load testing the rules and balancing scores.
+// Game i uses the maze and bot built from seed + i, and a SimulatedClock that steps
+// forward one move cooldown per move, so results are the same for any thread count.
+public class SimulationRunner implements AutoCloseable {
+    public record Report(int games, int threads, long wallNanos, int wins, double meanScore, double meanMoves,
+                         double meanSeconds, long p50Nanos, long p90Nanos, long p99Nanos, long maxNanos) {
+
+        public double gamesPerSecond() {
+            return games / (wallNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d games on %d threads: %,.0f games/sec, %d%% won, mean score %.1f, "
+                            + "mean moves %.1f, mean game time %.1f s, latency p50 %.1f us p90 %.1f us p99 %.1f us max %.1f us",
+                    games, threads, gamesPerSecond(), Math.round(100.0 * wins / games), meanScore, meanMoves, meanSeconds,
+                    p50Nanos / 1e3, p90Nanos / 1e3, p99Nanos / 1e3, maxNanos / 1e3);
+        }
+    }
+
+    private final int threads;
+    private final ExecutorService executor;
+
+    public SimulationRunner(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Invalid thread count: " + threads);
+        }
+        this.threads = threads;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "maze-sim-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Plays games on size x size mazes.  A game ends when the bot reaches the end, gives
+    // up, or has made maxMoves attempts.  Winning scores go into highScores if it isn't null.
+    public Report run(int games, int size, long seed, LongFunction<GameBot> bots, int maxMoves, HighScoreTable highScores) {
+        if (games <= 0) {
+            throw new IllegalArgumentException("Invalid game count: " + games);
+        }
+        long[] latency = new long[games];
+        int[] scores = new int[games];
+        int[] moves = new int[games];
+        double[] seconds = new double[games];
+        boolean[] won = new boolean[games];
+        AtomicInteger nextGame = new AtomicInteger();
+
+        long start = System.nanoTime();
+        List<Future<?>> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            workers.add(executor.submit(() -> {
+                for (int game = nextGame.getAndIncrement(); game < games; game = nextGame.getAndIncrement()) {
+                    long gameStart = System.nanoTime();
+                    SimulatedClock clock = new SimulatedClock();
+                    GameSession session = new GameSession(new Maze(1f, size, seed + game), clock);
+                    GameBot bot = bots.apply(seed + game);
+                    for (int attempt = 0; attempt < maxMoves && !session.isWon(); attempt++) {
+                        int direction = bot.nextDirection(session);
+                        if (direction < 0) {
+                            break;
+                        }
+                        session.move(direction);
+                        clock.advance(GameSession.DEFAULT_MOVE_COOLDOWN);
+                    }
+                    if (session.isWon() && highScores != null) {
+                        highScores.add(session.getScore(), size);
+                    }
+                    latency[game] = System.nanoTime() - gameStart;
+                    scores[game] = session.getScore();
+                    moves[game] = session.getMoves();
+                    seconds[game] = session.getElapsedSeconds();
+                    won[game] = session.isWon();
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while simulating", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Simulation failed", e.getCause());
+            }
+        }
+        long wallNanos = System.nanoTime() - start;
+
+        int wins = 0;
+        long totalScore = 0;
+        long totalMoves = 0;
+        double totalSeconds = 0;
+        for (int game = 0; game < games; game++) {
+            wins += won[game] ? 1 : 0;
+            totalScore += scores[game];
+            totalMoves += moves[game];
+            totalSeconds += seconds[game];
+        }
+        Arrays.sort(latency);
+        return new Report(games, threads, wallNanos, wins, totalScore / (double) games, totalMoves / (double) games,
+                totalSeconds / games, percentile(latency, 0.5), percentile(latency, 0.9), percentile(latency, 0.99),
+                latency[games - 1]);
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,19 @@
+package com.maze;
+
+import java.util.function.Function;
+
+public enum SolverAlgorithm {
+    BFS(PathFinder::new),
+    A_STAR(AStarSolver::new),
+    BIDIRECTIONAL_BFS(BidirectionalSolver::new);
+
+    private final Function<WallGrid, MazeSolver> factory;
+
+    SolverAlgorithm(Function<WallGrid, MazeSolver> factory) {
+        this.factory = factory;
+    }
+
+    public MazeSolver create(WallGrid walls) {
+        return factory.apply(walls);
+    }
+}
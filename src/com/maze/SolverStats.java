@@ -0,0 +1,20 @@
+package com.maze;
+
+// Running totals for a MazeSolver: how many searches, how many cells they took off
+// the open list, and how long they spent
+public record SolverStats(String solver, long queries, long expanded, long nanos) {
+
+    public double expandedPerQuery() {
+        return queries == 0 ? 0 : expanded / (double) queries;
+    }
+
+    public double meanLatencyMicros() {
+        return queries == 0 ? 0 : nanos / 1e3 / queries;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %,d queries, %,.0f cells expanded/query, %.1f us/query",
+                solver, queries, expandedPerQuery(), meanLatencyMicros());
+    }
+}
@@ -0,0 +1,174 @@
+package com.maze;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.random.RandomGenerator;
+
+// Splits the board into tiles, carves each tile's spanning tree in parallel on a
+// ForkJoinPool, then joins the tiles with a union-find pass over the tile borders so
+// the result is still a perfect maze.
+//
+// Every tile gets its own SplittableRandom, split off in tile order before any work
+// is forked, and the borders are stitched on the calling thread.  The maze therefore
+// depends only on the incoming random, never on the number of threads.
+public class TiledGenerator implements MazeGenerator {
+    public static final int DEFAULT_TILE_SIZE = 128;
+
+    private final MazeAlgorithm tileAlgorithm;
+    private final int tileSize;
+    private final ForkJoinPool pool;
+
+    public TiledGenerator() {
+        this(MazeAlgorithm.PRIM, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool());
+    }
+
+    public TiledGenerator(MazeAlgorithm tileAlgorithm, int tileSize, ForkJoinPool pool) {
+        if (tileAlgorithm == MazeAlgorithm.TILED) {
+            throw new IllegalArgumentException("Tiles can't themselves be tiled");
+        }
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("Invalid tile size: " + tileSize);
+        }
+        this.tileAlgorithm = tileAlgorithm;
+        this.tileSize = tileSize;
+        this.pool = pool;
+    }
+
+    @Override
+    public String getName() {
+        return "tiled-" + tileAlgorithm.create().getName();
+    }
+
+    @Override
+    public long carve(WallGrid walls, RandomGenerator random) {
+        int tileRows = (walls.getRows() + tileSize - 1) / tileSize;
+        int tileCols = (walls.getCols() + tileSize - 1) / tileSize;
+        int tileCount = tileRows * tileCols;
+
+        SplittableRandom root = new SplittableRandom(random.nextLong());
+        List<SplittableRandom> tileRandoms = new ArrayList<>(tileCount);
+        for (int tile = 0; tile < tileCount; tile++) {
+            tileRandoms.add(root.split());
+        }
+
+        LongAccumulator peakTileBytes = new LongAccumulator(Math::max, 0);
+        pool.invoke(new TileTask(walls, tileCols, tileRandoms, peakTileBytes, 0, tileCount));
+        stitch(walls, tileRows, tileCols, root);
+
+        // Each worker holds one tile at a time; stitching needs the border list and union-find
+        return Math.min(pool.getParallelism(), tileCount) * peakTileBytes.get()
+                + (long) tileCount * (Integer.BYTES * 3 + Byte.BYTES);
+    }
+
+    // Returns the bytes the tile needed: its own grid plus the tile algorithm's scratch
+    private long carveTile(WallGrid walls, int tile, int tileCols, RandomGenerator random) {
+        int rowStart = (tile / tileCols) * tileSize;
+        int colStart = (tile % tileCols) * tileSize;
+        int rows = Math.min(tileSize, walls.getRows() - rowStart);
+        int cols = Math.min(tileSize, walls.getCols() - colStart);
+
+        WallGrid local = new WallGrid(rows, cols);
+        long scratchBytes = tileAlgorithm.create().carve(local, random);
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int localCell = local.indexOf(row, col);
+                int cell = walls.indexOf(rowStart + row, colStart + col);
+                if (row < rows - 1 && !local.isWall(localCell, WallGrid.RIGHT)) {
+                    walls.removeWallConcurrent(cell, WallGrid.RIGHT);
+                }
+                if (col < cols - 1 && !local.isWall(localCell, WallGrid.BOTTOM)) {
+                    walls.removeWallConcurrent(cell, WallGrid.BOTTOM);
+                }
+            }
+        }
+        return local.getMemoryBytes() + scratchBytes;
+    }
+
+    // Randomized Kruskal over the tile graph: every pair of neighboring tiles that is
+    // not yet connected gets a single opening at a random spot along their border.
+    private void stitch(WallGrid walls, int tileRows, int tileCols, SplittableRandom random) {
+        int tileCount = tileRows * tileCols;
+        int borderCount = tileRows * (tileCols - 1) + tileCols * (tileRows - 1);
+        int[] borders = new int[borderCount];
+        int n = 0;
+        for (int tile = 0; tile < tileCount; tile++) {
+            if (tile / tileCols < tileRows - 1) {
+                borders[n++] = PrimGenerator.encodeWall(tile, WallGrid.RIGHT);
+            }
+            if (tile % tileCols < tileCols - 1) {
+                borders[n++] = PrimGenerator.encodeWall(tile, WallGrid.BOTTOM);
+            }
+        }
+
+        int[] parent = new int[tileCount];
+        byte[] rank = new byte[tileCount];
+        for (int i = 0; i < tileCount; i++) {
+            parent[i] = i;
+        }
+
+        for (int i = borderCount - 1; i >= 0; i--) {
+            int pick = random.nextInt(i + 1);
+            int border = borders[pick];
+            borders[pick] = borders[i];
+
+            int tile = border >>> 1;
+            boolean below = (border & 1) == 0;
+            int other = below ? tile + tileCols : tile + 1;
+            int root1 = KruskalGenerator.find(parent, tile);
+            int root2 = KruskalGenerator.find(parent, other);
+            if (root1 == root2) {
+                continue;
+            }
+            KruskalGenerator.union(parent, rank, root1, root2);
+
+            int tileRow = (tile / tileCols) * tileSize;
+            int tileCol = (tile % tileCols) * tileSize;
+            if (below) {
+                // The last row of this tile opens its RIGHT wall into the next tile
+                int row = tileRow + tileSize - 1;
+                int col = tileCol + random.nextInt(Math.min(tileSize, walls.getCols() - tileCol));
+                walls.removeWall(walls.indexOf(row, col), WallGrid.RIGHT);
+            } else {
+                // The last column of this tile opens its BOTTOM wall into the next tile
+                int row = tileRow + random.nextInt(Math.min(tileSize, walls.getRows() - tileRow));
+                int col = tileCol + tileSize - 1;
+                walls.removeWall(walls.indexOf(row, col), WallGrid.BOTTOM);
+            }
+        }
+    }
+
+    @SuppressWarnings("serial") // Fork/join tasks are never serialized
+    private class TileTask extends RecursiveAction {
+        private final WallGrid walls;
+        private final int tileCols;
+        private final List<SplittableRandom> tileRandoms;
+        private final LongAccumulator peakTileBytes;
+        private final int from;
+        private final int to;
+
+        TileTask(WallGrid walls, int tileCols, List<SplittableRandom> tileRandoms, LongAccumulator peakTileBytes, int from, int to) {
+            this.walls = walls;
+            this.tileCols = tileCols;
+            this.tileRandoms = tileRandoms;
+            this.peakTileBytes = peakTileBytes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                peakTileBytes.accumulate(carveTile(walls, from, tileCols, tileRandoms.get(from)));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new TileTask(walls, tileCols, tileRandoms, peakTileBytes, from, middle),
+                    new TileTask(walls, tileCols, tileRandoms, peakTileBytes, middle, to));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.maze;
+
+// Answers cell to cell distance and path queries on a perfect maze without searching.
+// A perfect maze is a tree, so the path between two cells always runs through their
+// lowest common ancestor.  The tree is rooted at cell 0 and every cell keeps its
+// parent, depth and one skew-binary jump pointer, which finds ancestors in
+// O(log n) steps while costing only O(n) memory (12 bytes per cell), where a
+// sparse table or full binary lifting would need O(n log n).
+public final class TreeDistanceOracle {
+    private final WallGrid walls;
+    private final long modCount;
+    private final int[] parent;
+    private final int[] depth;
+    private final int[] jump;
+
+    public TreeDistanceOracle(WallGrid walls) {
+        int cellCount = walls.getCellCount();
+        this.walls = walls;
+        this.modCount = walls.getModCount();
+        this.parent = new int[cellCount];
+        this.depth = new int[cellCount];
+        this.jump = new int[cellCount];
+
+        // Breadth first, so a cell's parent and its jump pointers are always done first.
+        // depth doubles as the visited marker, offset by one while building.
+        int[] queue = new int[cellCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = 0;
+        parent[0] = 0;
+        jump[0] = 0;
+        depth[0] = 1;
+        long openWalls = 0;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int open = walls.openDirections(cell);
+            openWalls += Integer.bitCount(open);
+            while (open != 0) {
+                int direction = Integer.numberOfTrailingZeros(open);
+                open &= open - 1;
+                int child = walls.neighborOf(cell, direction);
+                if (depth[child] == 0) {
+                    depth[child] = depth[cell] + 1;
+                    parent[child] = cell;
+                    jump[child] = jumpFor(cell);
+                    queue[tail++] = child;
+                }
+            }
+        }
+
+        // Each open wall was counted from both sides
+        if (tail != cellCount || openWalls / 2 != cellCount - 1) {
+            throw new IllegalArgumentException("Distance oracle needs a perfect maze");
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            depth[cell]--;
+        }
+    }
+
+    // If the parent's jump and the jump after it span the same number of levels, the
+    // child jumps over both; otherwise it jumps to its parent
+    private int jumpFor(int p) {
+        int j = jump[p];
+        int jj = jump[j];
+        return depth[p] - depth[j] == depth[j] - depth[jj] ? jj : p;
+    }
+
+    public boolean isStale() {
+        return walls.getModCount() != modCount;
+    }
+
+    public int distance(int a, int b) {
+        return depth[a] + depth[b] - 2 * depth[commonAncestor(a, b)];
+    }
+
+    public int commonAncestor(int a, int b) {
+        if (depth[a] > depth[b]) {
+            a = ancestorAtDepth(a, depth[b]);
+        } else if (depth[b] > depth[a]) {
+            b = ancestorAtDepth(b, depth[a]);
+        }
+        // Cells at the same depth have jump pointers of the same length
+        while (a != b) {
+            if (jump[a] != jump[b]) {
+                a = jump[a];
+                b = jump[b];
+            } else {
+                a = parent[a];
+                b = parent[b];
+            }
+        }
+        return a;
+    }
+
+    private int ancestorAtDepth(int cell, int targetDepth) {
+        while (depth[cell] > targetDepth) {
+            cell = depth[jump[cell]] >= targetDepth ? jump[cell] : parent[cell];
+        }
+        return cell;
+    }
+
+    // The cells from a to b inclusive
+    public int[] path(int a, int b) {
+        int[] path = new int[distance(a, b) + 1];
+        path(a, b, path);
+        return path;
+    }
+
+    // Allocation free form; path needs room for distance(a, b) + 1 cells.  Returns the length.
+    public int path(int a, int b, int[] path) {
+        int ancestor = commonAncestor(a, b);
+        int length = depth[a] + depth[b] - 2 * depth[ancestor] + 1;
+        if (length > path.length) {
+            throw new IllegalArgumentException("Path of " + length + " cells doesn't fit in " + path.length);
+        }
+
+        int i = 0;
+        for (int cell = a; cell != ancestor; cell = parent[cell]) {
+            path[i++] = cell;
+        }
+        path[i] = ancestor;
+        int j = length - 1;
+        for (int cell = b; cell != ancestor; cell = parent[cell]) {
+            path[j--] = cell;
+        }
+        return length;
+    }
+
+    // Index into targets of the target closest to from, or -1 if there are none
+    public int nearest(int from, int[] targets) {
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < targets.length; i++) {
+            int d = distance(from, targets[i]);
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    public long getMemoryBytes() {
+        return 3L * parent.length * Integer.BYTES;
+    }
+}
@@ -0,0 +1,353 @@
+package com.maze;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Packed wall storage for a rows x cols grid of cells.  Cells are addressed by
+// index = row * cols + col.  Each cell owns two bits: its right wall (shared with
+// row + 1) and its bottom wall (shared with col + 1).  The left and top walls of a
+// cell are read from the neighbor that owns them, so every interior wall is stored
+// exactly once.  Walls on the outside edge of the grid are permanent.
+//
+// The bits normally live in a long[] on the heap.  A grid can instead be a view over
+// the off-heap memory of an OffHeapWallStore small enough for int cell indices, in
+// which case it is only usable until that store is closed.
+public final class WallGrid {
+    public static final int TOP = 0;
+    public static final int BOTTOM = 1;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 3;
+
+    private static final long RIGHT_BIT = 1L;
+    private static final long BOTTOM_BIT = 2L;
+    private static final int CELLS_PER_WORD = 32;
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle BUFFER_WORDS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final int rows;
+    private final int cols;
+    private final long[] bits;      // Null when the bits are off heap
+    private ByteBuffer offHeap;     // Little endian words; null on the heap or once closed
+    private long modCount = 0;
+
+    public WallGrid(int rows, int cols) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Invalid grid size: " + rows + "x" + cols);
+        }
+        long cellCount = (long) rows * cols;
+        if (cellCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid too large for int cell indices: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.bits = new long[wordCount(rows, cols)];
+        resetWalls();
+    }
+
+    // Wraps existing wall bits without copying them
+    WallGrid(int rows, int cols, long[] bits) {
+        this.rows = rows;
+        this.cols = cols;
+        this.bits = bits;
+    }
+
+    // Wraps off-heap words without copying or resetting them
+    WallGrid(int rows, int cols, ByteBuffer words) {
+        this.rows = rows;
+        this.cols = cols;
+        this.bits = null;
+        if (words.capacity() < (long) wordCount(rows, cols) * Long.BYTES) {
+            throw new IllegalArgumentException("Buffer too small for a " + rows + "x" + cols + " grid");
+        }
+        this.offHeap = words.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // Always a heap copy, even of an off-heap grid
+    public WallGrid copy() {
+        return new WallGrid(rows, cols, toArray());
+    }
+
+    public boolean isOffHeap() {
+        return bits == null;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getCellCount() {
+        return rows * cols;
+    }
+
+    public int indexOf(int row, int col) {
+        return row * cols + col;
+    }
+
+    public int rowOf(int cell) {
+        return cell / cols;
+    }
+
+    public int colOf(int cell) {
+        return cell % cols;
+    }
+
+    public boolean isValidCell(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < cols;
+    }
+
+    // Index of the cell on the other side of the given wall.  Only meaningful
+    // when that wall is not on the outside edge of the grid.
+    public int neighborOf(int cell, int direction) {
+        switch (direction) {
+            case RIGHT:
+                return cell + cols;
+            case LEFT:
+                return cell - cols;
+            case BOTTOM:
+                return cell + 1;
+            case TOP:
+                return cell - 1;
+            default:
+                throw new IllegalArgumentException("Invalid direction: " + direction);
+        }
+    }
+
+    // True when there is a cell on the other side of the given wall
+    public boolean hasNeighbor(int cell, int direction) {
+        switch (direction) {
+            case RIGHT:
+                return cell / cols < rows - 1;
+            case LEFT:
+                return cell >= cols;
+            case BOTTOM:
+                return cell % cols < cols - 1;
+            case TOP:
+                return cell % cols > 0;
+            default:
+                throw new IllegalArgumentException("Invalid direction: " + direction);
+        }
+    }
+
+    public void resetWalls() {
+        if (bits != null) {
+            Arrays.fill(bits, -1L);
+        } else {
+            int words = wordCount(rows, cols);
+            for (int i = 0; i < words; i++) {
+                offHeap.putLong(i << 3, -1L);
+            }
+        }
+        modCount++;
+    }
+
+    // Changes whenever walls are reset or removed, so derived data such as a
+    // GoalField can tell it is stale.  removeWallConcurrent doesn't bump it; it is
+    // only meant for use during generation, which always starts with resetWalls.
+    public long getModCount() {
+        return modCount;
+    }
+
+    public static int opposite(int direction) {
+        return direction ^ 1;
+    }
+
+    public boolean isWall(int cell, int direction) {
+        switch (direction) {
+            case RIGHT:
+                return cell / cols == rows - 1 || isSet(cell, RIGHT_BIT);
+            case LEFT:
+                return cell < cols || isSet(cell - cols, RIGHT_BIT);
+            case BOTTOM:
+                return cell % cols == cols - 1 || isSet(cell, BOTTOM_BIT);
+            case TOP:
+                return cell % cols == 0 || isSet(cell - 1, BOTTOM_BIT);
+            default:
+                throw new IllegalArgumentException("Invalid direction: " + direction);
+        }
+    }
+
+    // Outside walls are never removed, so removing one is a no-op
+    public void removeWall(int cell, int direction) {
+        modCount++;
+        switch (direction) {
+            case RIGHT:
+                if (cell / cols < rows - 1) clear(cell, RIGHT_BIT);
+                break;
+            case LEFT:
+                if (cell >= cols) clear(cell - cols, RIGHT_BIT);
+                break;
+            case BOTTOM:
+                if (cell % cols < cols - 1) clear(cell, BOTTOM_BIT);
+                break;
+            case TOP:
+                if (cell % cols > 0) clear(cell - 1, BOTTOM_BIT);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid direction: " + direction);
+        }
+    }
+
+    // Same as removeWall, but safe to call from several threads at once.  Neighboring
+    // cells share a word, so plain read-modify-write updates could lose a wall.
+    public void removeWallConcurrent(int cell, int direction) {
+        switch (direction) {
+            case RIGHT:
+                if (cell / cols < rows - 1) clearConcurrent(cell, RIGHT_BIT);
+                break;
+            case LEFT:
+                if (cell >= cols) clearConcurrent(cell - cols, RIGHT_BIT);
+                break;
+            case BOTTOM:
+                if (cell % cols < cols - 1) clearConcurrent(cell, BOTTOM_BIT);
+                break;
+            case TOP:
+                if (cell % cols > 0) clearConcurrent(cell - 1, BOTTOM_BIT);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid direction: " + direction);
+        }
+    }
+
+    // Walks the grid one row at a time, in the same form EllerRowStream produces, so
+    // row consumers work against either source.  The returned WallRow is reused.
+    public Iterator<WallRow> rows() {
+        return new Iterator<>() {
+            private final WallRow row = new WallRow(cols);
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < rows;
+            }
+
+            @Override
+            public WallRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                row.reset(next, next == rows - 1);
+                int rowStart = next * cols;
+                for (int col = 0; col < cols; col++) {
+                    if (!isSet(rowStart + col, RIGHT_BIT)) {
+                        row.removeWall(col, RIGHT);
+                    }
+                    if (!isSet(rowStart + col, BOTTOM_BIT)) {
+                        row.removeWall(col, BOTTOM);
+                    }
+                }
+                next++;
+                return row;
+            }
+        };
+    }
+
+    // Bytes used by the packed wall bits, not counting the object headers
+    public long getMemoryBytes() {
+        return (long) wordCount(rows, cols) * Long.BYTES;
+    }
+
+    public double getBytesPerCell() {
+        return getMemoryBytes() / (double) getCellCount();
+    }
+
+    public static int directionOf(String name) {
+        switch (name) {
+            case "top":
+                return TOP;
+            case "bottom":
+                return BOTTOM;
+            case "left":
+                return LEFT;
+            case "right":
+                return RIGHT;
+            default:
+                throw new IllegalArgumentException("Invalid direction: " + name);
+        }
+    }
+
+    // Bit d is set when the wall in direction d is open.  Cheaper than four isWall
+    // calls since the row and column are only worked out once.
+    public int openDirections(int cell) {
+        int row = cell / cols;
+        int col = cell - row * cols;
+        int open = 0;
+        if (col > 0 && !isSet(cell - 1, BOTTOM_BIT)) open |= 1 << TOP;
+        if (col < cols - 1 && !isSet(cell, BOTTOM_BIT)) open |= 1 << BOTTOM;
+        if (row > 0 && !isSet(cell - cols, RIGHT_BIT)) open |= 1 << LEFT;
+        if (row < rows - 1 && !isSet(cell, RIGHT_BIT)) open |= 1 << RIGHT;
+        return open;
+    }
+
+    // The backing array of a heap grid, or a copy of the words of an off-heap one
+    long[] getBits() {
+        return bits != null ? bits : toArray();
+    }
+
+    // Bulk copies the words into dest, which must be little endian when it is a view
+    // of a ByteBuffer that is read back as a MazeFile
+    void copyWordsTo(LongBuffer dest) {
+        if (bits != null) {
+            dest.put(bits);
+        } else {
+            dest.put(offHeap.duplicate().order(ByteOrder.LITTLE_ENDIAN).limit(getWordBytes()).asLongBuffer());
+        }
+    }
+
+    // Called by the owning OffHeapWallStore when it frees the memory, so later use
+    // fails with an exception instead of reading freed memory
+    void detach() {
+        offHeap = null;
+    }
+
+    private long[] toArray() {
+        if (bits != null) {
+            return bits.clone();
+        }
+        long[] words = new long[wordCount(rows, cols)];
+        offHeap.duplicate().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(words);
+        return words;
+    }
+
+    private int getWordBytes() {
+        return wordCount(rows, cols) * Long.BYTES;
+    }
+
+    static int wordCount(int rows, int cols) {
+        return (int) (((long) rows * cols + CELLS_PER_WORD - 1) / CELLS_PER_WORD);
+    }
+
+    private long word(int cell) {
+        return bits != null ? bits[cell >>> 5] : offHeap.getLong((cell >>> 5) << 3);
+    }
+
+    private boolean isSet(int cell, long mask) {
+        return (word(cell) & (mask << ((cell & 31) << 1))) != 0;
+    }
+
+    private void clear(int cell, long mask) {
+        if (bits != null) {
+            bits[cell >>> 5] &= ~(mask << ((cell & 31) << 1));
+        } else {
+            int index = (cell >>> 5) << 3;
+            offHeap.putLong(index, offHeap.getLong(index) & ~(mask << ((cell & 31) << 1)));
+        }
+    }
+
+    private void clearConcurrent(int cell, long mask) {
+        if (bits != null) {
+            WORDS.getAndBitwiseAnd(bits, cell >>> 5, ~(mask << ((cell & 31) << 1)));
+        } else {
+            BUFFER_WORDS.getAndBitwiseAnd(offHeap, (cell >>> 5) << 3, ~(mask << ((cell & 31) << 1)));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.maze;
+
+import java.util.Arrays;
+
+// One row of wall bits, packed the same way as WallGrid: each cell owns its right
+// wall (into the next row) and its bottom wall (into the next cell of this row).
+// Row producers reuse a single instance, so copy it if it has to outlive the call.
+public final class WallRow {
+    private static final long RIGHT_BIT = 1L;
+    private static final long BOTTOM_BIT = 2L;
+
+    private final int width;
+    private final long[] bits;
+    private long index;
+    private boolean last;
+
+    public WallRow(int width) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("Invalid row width: " + width);
+        }
+        this.width = width;
+        this.bits = new long[(width + 31) / 32];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    // True for the final row of a finite maze, whose right walls are all outside walls
+    public boolean isLast() {
+        return last;
+    }
+
+    // Only the walls a row owns can be asked for: RIGHT and BOTTOM
+    public boolean isWall(int col, int direction) {
+        switch (direction) {
+            case WallGrid.RIGHT:
+                return last || (bits[col >>> 5] & (RIGHT_BIT << ((col & 31) << 1))) != 0;
+            case WallGrid.BOTTOM:
+                return col == width - 1 || (bits[col >>> 5] & (BOTTOM_BIT << ((col & 31) << 1))) != 0;
+            default:
+                throw new IllegalArgumentException("A row only stores RIGHT and BOTTOM walls: " + direction);
+        }
+    }
+
+    public WallRow copy() {
+        WallRow copy = new WallRow(width);
+        System.arraycopy(bits, 0, copy.bits, 0, bits.length);
+        copy.index = index;
+        copy.last = last;
+        return copy;
+    }
+
+    // The packed words, for copying a row a word at a time
+    long[] getBits() {
+        return bits;
+    }
+
+    void reset(long index, boolean last) {
+        this.index = index;
+        this.last = last;
+        Arrays.fill(bits, -1L);
+    }
+
+    void removeWall(int col, int direction) {
+        long mask = direction == WallGrid.RIGHT ? RIGHT_BIT : BOTTOM_BIT;
+        bits[col >>> 5] &= ~(mask << ((col & 31) << 1));
+    }
+}
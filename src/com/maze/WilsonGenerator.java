@@ -0,0 +1,49 @@
+package com.maze;
+
+import java.util.BitSet;
+import java.util.random.RandomGenerator;
+
+// Wilson's algorithm: loop-erased random walks from each cell outside the tree
+// until the walk hits the tree.  Produces a uniform spanning tree.
+public class WilsonGenerator implements MazeGenerator {
+
+    @Override
+    public String getName() {
+        return "wilson";
+    }
+
+    @Override
+    public long carve(WallGrid walls, RandomGenerator random) {
+        int cellCount = walls.getCellCount();
+        BitSet inTree = new BitSet(cellCount);
+        // Last direction taken out of each cell during the current walk.  Revisiting
+        // a cell overwrites its exit, which erases the loop without extra work.
+        byte[] exits = new byte[cellCount];
+
+        inTree.set(random.nextInt(cellCount));
+
+        for (int start = 0; start < cellCount; start++) {
+            if (inTree.get(start)) {
+                continue;
+            }
+
+            int cell = start;
+            while (!inTree.get(cell)) {
+                int direction = AldousBroderGenerator.randomDirection(walls, cell, random);
+                exits[cell] = (byte) direction;
+                cell = walls.neighborOf(cell, direction);
+            }
+
+            // Follow the loop-erased walk again, adding it to the tree
+            cell = start;
+            while (!inTree.get(cell)) {
+                int direction = exits[cell];
+                walls.removeWall(cell, direction);
+                inTree.set(cell);
+                cell = walls.neighborOf(cell, direction);
+            }
+        }
+
+        return GenerationStats.bitSetBytes(cellCount) + cellCount;
+    }
+}
@@ -0,0 +1,688 @@
+package com.maze.bench;
+
+import com.maze.BraidedGenerator;
+import com.maze.DifficultyProfile;
+import com.maze.DifficultySearch;
+import com.maze.EllerGenerator;
+import com.maze.EllerRowStream;
+import com.maze.GameBot;
+import com.maze.GenerationStats;
+import com.maze.GoalField;
+import com.maze.HighScoreTable;
+import com.maze.Maze;
+import com.maze.MazeAlgorithm;
+import com.maze.MazeBatchEnvironment;
+import com.maze.MazeCatalog;
+import com.maze.MazeFile;
+import com.maze.MazeGenerator;
+import com.maze.MazeSolver;
+import com.maze.MazeStats;
+import com.maze.OffHeapSearch;
+import com.maze.OffHeapWallStore;
+import com.maze.PathFinder;
+import com.maze.SimulationRunner;
+import com.maze.SolverAlgorithm;
+import com.maze.SolverStats;
+import com.maze.TiledGenerator;
+import com.maze.TreeDistanceOracle;
+import com.maze.WallGrid;
+import com.maze.WallRow;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Stand-alone benchmarks for the maze code.  Run with the module classpath:
+//
+//     java -Xmx2g com.maze.bench.MazeBenchmark memory
+//     java -Xmx2g com.maze.bench.MazeBenchmark generate
+//     java -Xmx2g com.maze.bench.MazeBenchmark generators
+//     java -Xmx64m com.maze.bench.MazeBenchmark stream
+//     java -Xmx8g com.maze.bench.MazeBenchmark tiled [size]
+//     java -Xmx2g com.maze.bench.MazeBenchmark bfs
+//     java -Xmx2g com.maze.bench.MazeBenchmark oracle
+//     java -Xmx2g com.maze.bench.MazeBenchmark solvers
+//     java -Xmx256m com.maze.bench.MazeBenchmark catalog [count]
+//     java -Xmx2g com.maze.bench.MazeBenchmark offheap [size]
+//     java -Xmx2g com.maze.bench.MazeBenchmark simulate [games] [size]
+//     java -Xmx2g com.maze.bench.MazeBenchmark batch [envs] [size]
+//     java -Xmx2g com.maze.bench.MazeBenchmark stats
+//     java -Xmx2g com.maze.bench.MazeBenchmark difficulty
+//
+public class MazeBenchmark {
+    // Packed walls must stay at or below 4 bits per cell
+    private static final double MEMORY_TARGET_BYTES_PER_CELL = 0.5;
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "memory";
+        switch (mode) {
+            case "memory":
+                memory();
+                break;
+            case "generate":
+                generate();
+                break;
+            case "generators":
+                generators();
+                break;
+            case "stream":
+                stream();
+                break;
+            case "bfs":
+                bfs();
+                break;
+            case "oracle":
+                oracle();
+                break;
+            case "solvers":
+                solvers();
+                break;
+            case "offheap":
+                offHeap(args.length > 1 ? Integer.parseInt(args[1]) : 8192);
+                break;
+            case "simulate":
+                simulate(args.length > 1 ? Integer.parseInt(args[1]) : 20_000, args.length > 2 ? Integer.parseInt(args[2]) : 20);
+                break;
+            case "batch":
+                batch(args.length > 1 ? Integer.parseInt(args[1]) : 4096, args.length > 2 ? Integer.parseInt(args[2]) : 10);
+                break;
+            case "stats":
+                stats();
+                break;
+            case "difficulty":
+                difficulty();
+                break;
+            case "catalog":
+                catalog(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+                break;
+            case "tiled":
+                tiled(args.length > 1 ? Integer.parseInt(args[1]) : 4000);
+                break;
+            default:
+                System.out.println("Unknown benchmark: " + mode);
+                System.exit(1);
+        }
+    }
+
+    private static void memory() {
+        int[] sizes = { 1024, 4096, 16384 };
+        boolean passed = true;
+        for (int size : sizes) {
+            long before = usedHeap();
+            WallGrid grid = new WallGrid(size, size);
+            long after = usedHeap();
+
+            double bytesPerCell = grid.getBytesPerCell();
+            double measuredPerCell = (after - before) / (double) grid.getCellCount();
+            boolean ok = bytesPerCell <= MEMORY_TARGET_BYTES_PER_CELL;
+            passed &= ok;
+            System.out.printf("%6dx%-6d walls=%,d bytes  %.3f bytes/cell (heap delta %.3f)  target<=%.2f %s%n",
+                    size, size, grid.getMemoryBytes(), bytesPerCell, measuredPerCell,
+                    MEMORY_TARGET_BYTES_PER_CELL, ok ? "OK" : "FAIL");
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    // Doubles the side length each step.  Linear generation keeps ns/cell flat
+    // while the cell count grows 4x per step.
+    private static void generate() {
+        int[] sizes = { 125, 250, 500, 1000, 2000 };
+        int repetitions = 5;
+
+        // Warm up the JIT before timing anything
+        for (int i = 0; i < 20; i++) {
+            new Maze(.8f, 200);
+        }
+
+        for (int size : sizes) {
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < repetitions; i++) {
+                long start = System.nanoTime();
+                Maze maze = new Maze(.8f, size);
+                long elapsed = System.nanoTime() - start;
+                if (maze.getWallGrid().getCellCount() != size * size) {
+                    throw new IllegalStateException("Unexpected maze size");
+                }
+                best = Math.min(best, elapsed);
+            }
+            long cells = (long) size * size;
+            System.out.printf("%5dx%-5d %10.2f ms  %8.1f ns/cell  %,12.0f cells/sec%n",
+                    size, size, best / 1e6, best / (double) cells, cells / (best / 1e9));
+        }
+    }
+
+    // Compares every MazeGenerator on the same board sizes
+    private static void generators() {
+        int[] sizes = { 100, 500, 1000 };
+        for (MazeAlgorithm algorithm : MazeAlgorithm.values()) {
+            MazeGenerator generator = algorithm.create();
+            // Warm up the JIT before timing anything
+            for (int i = 0; i < 10; i++) {
+                generator.generate(new WallGrid(100, 100), new Random(i));
+            }
+            for (int size : sizes) {
+                WallGrid walls = new WallGrid(size, size);
+                GenerationStats stats = generator.generate(walls, new Random(size));
+                checkPerfect(walls);
+                System.out.printf("%-22s %5dx%-5d %10.2f ms  %,12.0f cells/sec  peak %,d bytes (%.2f bytes/cell)%n",
+                        algorithm, size, size, stats.nanos() / 1e6, stats.cellsPerSecond(),
+                        stats.peakBytes(walls), stats.peakBytes(walls) / (double) stats.cells());
+            }
+        }
+    }
+
+    // Pulls rows from a 10k wide maze far larger than the heap it runs in
+    private static void stream() {
+        int width = 10_000;
+        long height = 5_000;
+        EllerRowStream stream = new EllerRowStream(width, height, new Random(1));
+
+        long openWalls = 0;
+        long start = System.nanoTime();
+        while (stream.hasNext()) {
+            WallRow row = stream.next();
+            for (int col = 0; col < width; col++) {
+                if (!row.isWall(col, WallGrid.RIGHT)) openWalls++;
+                if (!row.isWall(col, WallGrid.BOTTOM)) openWalls++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long cells = width * height;
+        if (openWalls != cells - 1) {
+            throw new IllegalStateException("Not a perfect maze: " + openWalls + " open walls for " + cells + " cells");
+        }
+        System.out.printf("%dx%d streamed in %.2f s  %,.0f cells/sec  %,.0f rows/sec  scratch %,d bytes%n",
+                width, height, elapsed / 1e9, cells / (elapsed / 1e9), height / (elapsed / 1e9), stream.getScratchBytes());
+    }
+
+    // Same seed at increasing thread counts: times must drop, checksums must not change
+    private static void tiled(int size) {
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        long expected = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            TiledGenerator generator = new TiledGenerator(MazeAlgorithm.PRIM, TiledGenerator.DEFAULT_TILE_SIZE, pool);
+            generator.generate(new WallGrid(512, 512), new Random(0)); // Warm up
+
+            WallGrid walls = new WallGrid(size, size);
+            GenerationStats stats = generator.generate(walls, new Random(42));
+            pool.shutdown();
+
+            long checksum = checksum(walls);
+            if (threads == 1) {
+                checkPerfect(walls);
+                expected = checksum;
+            } else if (checksum != expected) {
+                throw new IllegalStateException("Maze changed with " + threads + " threads");
+            }
+            System.out.printf("%5dx%-5d threads=%-3d %10.2f ms  %,14.0f cells/sec  checksum %016x%n",
+                    size, size, threads, stats.nanos() / 1e6, stats.cellsPerSecond(), checksum);
+        }
+    }
+
+    // Path queries on a 1M cell maze, corner to corner and between random cells
+    private static void bfs() {
+        int size = 1000;
+        WallGrid walls = new WallGrid(size, size);
+        MazeAlgorithm.PRIM.create().generate(walls, new Random(7));
+        PathFinder finder = new PathFinder(walls);
+        int[] path = new int[walls.getCellCount()];
+        int end = walls.getCellCount() - 1;
+
+        for (int i = 0; i < 20; i++) {
+            finder.findPath(0, end, path); // Warm up
+        }
+
+        int queries = 200;
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        int length = 0;
+        for (int i = 0; i < queries; i++) {
+            length = finder.findPath(0, end, path);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        System.out.printf("corner to corner  %dx%d  path %d cells  %8.3f ms/query  %,8.0f queries/sec  %,d bytes allocated%n",
+                size, size, length, elapsed / 1e6 / queries, queries / (elapsed / 1e9), allocated);
+
+        Random random = new Random(11);
+        long expandedBefore = finder.getExpandedCount();
+        allocatedBefore = allocatedBytes();
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            finder.findPath(random.nextInt(end + 1), random.nextInt(end + 1), path);
+        }
+        elapsed = System.nanoTime() - start;
+        allocated = allocatedBytes() - allocatedBefore;
+        long expanded = finder.getExpandedCount() - expandedBefore;
+        System.out.printf("random pairs      %dx%d  %,d cells expanded  %8.3f ms/query  %,8.0f queries/sec  %,.0f cells/sec  %,d bytes allocated%n",
+                size, size, expanded, elapsed / 1e6 / queries, queries / (elapsed / 1e9), expanded / (elapsed / 1e9), allocated);
+    }
+
+    // Random pair distances on a 1M cell maze, checked against BFS
+    private static void oracle() {
+        int size = 1000;
+        WallGrid walls = new WallGrid(size, size);
+        MazeAlgorithm.PRIM.create().generate(walls, new Random(7));
+        int cellCount = walls.getCellCount();
+
+        long start = System.nanoTime();
+        TreeDistanceOracle oracle = new TreeDistanceOracle(walls);
+        long built = System.nanoTime() - start;
+        System.out.printf("built %dx%d oracle in %.2f ms, %,d bytes%n", size, size, built / 1e6, oracle.getMemoryBytes());
+
+        PathFinder finder = new PathFinder(walls);
+        Random random = new Random(3);
+        for (int i = 0; i < 50; i++) {
+            int a = random.nextInt(cellCount);
+            int b = random.nextInt(cellCount);
+            if (oracle.distance(a, b) != finder.distance(a, b)) {
+                throw new IllegalStateException("Oracle disagrees with BFS for " + a + " -> " + b);
+            }
+        }
+
+        int queries = 1_000_000;
+        long checksum = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            checksum += oracle.distance(random.nextInt(cellCount), random.nextInt(cellCount));
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%,d random distance queries  %.3f us/query  %,.0f queries/sec  (mean distance %.0f)%n",
+                queries, elapsed / 1e3 / queries, queries / (elapsed / 1e9), checksum / (double) queries);
+    }
+
+    // Every solver on the same random pairs, on a perfect maze and on braided ones
+    private static void solvers() {
+        int size = 1000;
+        double[] fractions = { 0, 0.5, 1 };
+        for (double fraction : fractions) {
+            WallGrid walls = new WallGrid(size, size);
+            MazeGenerator generator = new BraidedGenerator(MazeAlgorithm.RECURSIVE_BACKTRACKER.create(), fraction);
+            generator.generate(walls, new Random(7));
+            int cellCount = walls.getCellCount();
+
+            int queries = 100;
+            int[] starts = new int[queries];
+            int[] ends = new int[queries];
+            Random random = new Random(5);
+            for (int i = 0; i < queries; i++) {
+                starts[i] = random.nextInt(cellCount);
+                ends[i] = random.nextInt(cellCount);
+            }
+
+            int[] expected = null;
+            int[] path = new int[cellCount];
+            System.out.printf("%s  %dx%d  braid fraction %.1f%n", generator.getName(), size, size, fraction);
+            for (SolverAlgorithm algorithm : SolverAlgorithm.values()) {
+                MazeSolver solver = algorithm.create(walls);
+                for (int i = 0; i < 10; i++) {
+                    solver.findPath(starts[i], ends[i], path); // Warm up
+                }
+                SolverStats warm = solver.getStats();
+
+                int[] lengths = new int[queries];
+                long allocatedBefore = allocatedBytes();
+                for (int i = 0; i < queries; i++) {
+                    lengths[i] = solver.findPath(starts[i], ends[i], path);
+                }
+                long allocated = allocatedBytes() - allocatedBefore;
+                if (expected == null) {
+                    expected = lengths;
+                } else if (!Arrays.equals(expected, lengths)) {
+                    throw new IllegalStateException(solver.getName() + " disagrees with BFS on path lengths");
+                }
+
+                SolverStats stats = solver.getStats();
+                SolverStats measured = new SolverStats(stats.solver(), stats.queries() - warm.queries(),
+                        stats.expanded() - warm.expanded(), stats.nanos() - warm.nanos());
+                System.out.printf("    %s  %,d bytes allocated%n", measured, allocated);
+            }
+        }
+    }
+
+    // Writes a level pack of 20x20 mazes with distance fields, then loads random
+    // entries from the mapped file and compares with regenerating them
+    private static void catalog(int count) {
+        int size = 20;
+        Path path = null;
+        try {
+            path = Files.createTempFile("mazes", ".catalog");
+            MazeGenerator generator = MazeAlgorithm.PRIM.create();
+            WallGrid walls = new WallGrid(size, size);
+            int goal = walls.getCellCount() - 1;
+
+            long start = System.nanoTime();
+            try (MazeCatalog.Writer writer = MazeCatalog.create(path)) {
+                for (int i = 0; i < count; i++) {
+                    generator.generate(walls, new Random(i));
+                    writer.add(walls, i, new GoalField(walls, goal));
+                }
+            }
+            long written = System.nanoTime() - start;
+            System.out.printf("wrote %,d mazes in %.2f s, %,d bytes (%.1f bytes/maze)%n",
+                    count, written / 1e9, Files.size(path), Files.size(path) / (double) count);
+
+            int loads = Math.min(count, 100_000);
+            Random random = new Random(1);
+            try (MazeCatalog catalog = MazeCatalog.open(path)) {
+                start = System.nanoTime();
+                for (int i = 0; i < loads; i++) {
+                    int n = random.nextInt(count);
+                    MazeFile file = catalog.get(n);
+                    if (file.getSeed() != n) {
+                        throw new IllegalStateException("Catalog entry " + n + " has seed " + file.getSeed());
+                    }
+                    file.toWallGrid();
+                }
+                long loaded = System.nanoTime() - start;
+
+                int n = random.nextInt(count);
+                generator.generate(walls, new Random(n));
+                if (checksum(catalog.get(n).toWallGrid()) != checksum(walls)) {
+                    throw new IllegalStateException("Catalog entry " + n + " doesn't match its seed");
+                }
+
+                start = System.nanoTime();
+                for (int i = 0; i < loads; i++) {
+                    generator.generate(walls, new Random(random.nextInt(count)));
+                    new GoalField(walls, goal);
+                }
+                long regenerated = System.nanoTime() - start;
+                System.out.printf("load from catalog  %.3f us/maze%nregenerate         %.3f us/maze%n",
+                        loaded / 1e3 / loads, regenerated / 1e3 / loads);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (path != null) {
+                path.toFile().delete();
+            }
+        }
+    }
+
+    // The same Eller maze on a heap grid, a native off-heap store and a file-backed one,
+    // searched corner to corner.  The stores and their search scratch don't count
+    // against -Xmx.  Boards past 46340x46340 don't fit a WallGrid, so the heap grid is
+    // skipped and the two stores are checked against each other.
+    private static void offHeap(int size) {
+        EllerGenerator generator = new EllerGenerator();
+        Path path = null;
+        try {
+            path = Files.createTempFile("maze", ".walls");
+            long expectedChecksum = 0;
+            long expectedDistance = 0;
+            boolean first = true;
+            if ((long) size * size <= Integer.MAX_VALUE) {
+                WallGrid walls = new WallGrid(size, size);
+                GenerationStats stats = generator.generate(walls, new Random(7));
+                PathFinder finder = new PathFinder(walls);
+                long start = System.nanoTime();
+                expectedDistance = finder.distance(0, walls.getCellCount() - 1);
+                long searched = System.nanoTime() - start;
+                expectedChecksum = checksum(walls);
+                first = false;
+                System.out.printf("%-6s %dx%d  walls %,d bytes  generate %,.0f cells/sec  bfs %.0f ms, %,d heap bytes (distance %,d)%n",
+                        "heap", size, size, walls.getMemoryBytes(), stats.cellsPerSecond(), searched / 1e6,
+                        finder.getMemoryBytes(), expectedDistance);
+            }
+
+            for (String kind : new String[] { "native", "file" }) {
+                try (OffHeapWallStore store = kind.equals("native")
+                             ? OffHeapWallStore.allocate(size, size)
+                             : OffHeapWallStore.create(path, size, size, 7);
+                     OffHeapSearch search = new OffHeapSearch(store)) {
+                    GenerationStats stats = generator.generate(store, new Random(7));
+                    long start = System.nanoTime();
+                    long distance = search.distance(0, store.getCellCount() - 1);
+                    long searched = System.nanoTime() - start;
+                    long checksum = checksum(store.rows());
+                    if (first) {
+                        expectedChecksum = checksum;
+                        expectedDistance = distance;
+                        first = false;
+                    } else if (checksum != expectedChecksum || distance != expectedDistance) {
+                        throw new IllegalStateException(kind + " store differs from the first grid");
+                    }
+                    System.out.printf("%-6s %dx%d  walls %,d bytes  generate %,.0f cells/sec  bfs %.0f ms, %,d native bytes (distance %,d)%n",
+                            kind, size, size, store.getMemoryBytes(), stats.cellsPerSecond(), searched / 1e6,
+                            search.getMemoryBytes(), distance);
+                }
+            }
+
+            try (OffHeapWallStore reopened = OffHeapWallStore.open(path)) {
+                if (checksum(reopened.rows()) != expectedChecksum) {
+                    throw new IllegalStateException("Reopened file store differs from the first grid");
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (path != null) {
+                path.toFile().delete();
+            }
+        }
+    }
+
+    // Headless games with bots of different skill, on one thread and on every core
+    private static void simulate(int games, int size) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int maxMoves = size * size * 20;
+        double[] skills = { 1, 0.75, 0.5 };
+        for (int threads : cores > 1 ? new int[] { 1, cores } : new int[] { 1 }) {
+            try (SimulationRunner runner = new SimulationRunner(threads)) {
+                runner.run(Math.min(games, 1000), size, 0, seed -> GameBot.optimal(), maxMoves, null); // Warm up
+                for (double skill : skills) {
+                    HighScoreTable highScores = new HighScoreTable(10);
+                    SimulationRunner.Report report = runner.run(games, size, 1,
+                            seed -> GameBot.skilled(skill, new Random(seed)), maxMoves, highScores);
+                    System.out.printf("skill %.2f  %s  best %s%n", skill, report,
+                            highScores.isEmpty() ? "none" : highScores.getEntries().get(0));
+                }
+            }
+        }
+    }
+
+    // Random agents stepping a batch of environments.  The optimal pass checks that
+    // following the goal field ends every episode with a full score.
+    private static void batch(int envs, int size) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] actions = new int[envs];
+        for (int threads : cores > 1 ? new int[] { 1, cores } : new int[] { 1 }) {
+            try (MazeBatchEnvironment environment = new MazeBatchEnvironment(envs, size, 1, size * size * 4, false, threads)) {
+                MazeBatchEnvironment.Step step = environment.reset();
+                int longest = 0;
+                for (int env = 0; env < envs; env++) {
+                    longest = Math.max(longest, environment.getGoalField(env).distance(0));
+                }
+                long reward = 0;
+                for (int i = 0; i < longest; i++) {
+                    for (int env = 0; env < envs; env++) {
+                        int[] observations = step.observations();
+                        int cell = observations[env * MazeBatchEnvironment.OBSERVATION_SIZE] * size
+                                + observations[env * MazeBatchEnvironment.OBSERVATION_SIZE + 1];
+                        actions[env] = environment.getEpisode(env) == 0 ? environment.getGoalField(env).nextDirection(cell) : 0;
+                    }
+                    step = environment.step(actions);
+                    for (int env = 0; env < envs; env++) {
+                        reward += (long) step.rewards()[env];
+                    }
+                }
+                long expected = 0;
+                for (int env = 0; env < envs; env++) {
+                    expected += environment.getGoalField(env).distance(0);
+                    if (environment.getEpisode(env) != 1) {
+                        throw new IllegalStateException("Environment " + env + " didn't finish on the optimal path");
+                    }
+                }
+                if (reward != expected) {
+                    throw new IllegalStateException("Optimal reward " + reward + " instead of " + expected);
+                }
+
+                Random random = new Random(3);
+                int stepsToRun = 2000;
+                long allocatedBefore = allocatedBytes();
+                long start = System.nanoTime();
+                long episodes = 0;
+                for (int i = 0; i < stepsToRun; i++) {
+                    for (int env = 0; env < envs; env++) {
+                        actions[env] = random.nextInt(4);
+                    }
+                    step = environment.step(actions);
+                    for (boolean done : step.done()) {
+                        episodes += done ? 1 : 0;
+                    }
+                }
+                long elapsed = System.nanoTime() - start;
+                long allocated = allocatedBytes() - allocatedBefore;
+                System.out.printf("%,d envs %dx%d threads=%d  %,.0f env steps/sec  %.1f us/batch step  %,d episodes  %,d bytes allocated%n",
+                        envs, size, size, threads, (double) envs * stepsToRun / (elapsed / 1e9),
+                        elapsed / 1e3 / stepsToRun, episodes, allocated);
+            }
+        }
+    }
+
+    // Analysis cost next to generation cost, for one big maze and a batch of small ones
+    private static void stats() {
+        for (MazeAlgorithm algorithm : new MazeAlgorithm[] { MazeAlgorithm.PRIM, MazeAlgorithm.RECURSIVE_BACKTRACKER }) {
+            for (double braid : new double[] { 0, 0.5 }) {
+                int size = 1000;
+                WallGrid walls = new WallGrid(size, size);
+                MazeGenerator generator = new BraidedGenerator(algorithm.create(), braid);
+                GenerationStats generation = generator.generate(walls, new Random(7));
+                MazeStats.analyze(walls); // Warm up
+                long start = System.nanoTime();
+                MazeStats stats = MazeStats.analyze(walls);
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("%s %dx%d  analyzed in %.1f ms (generated in %.1f ms)%n    %s%n",
+                        generator.getName(), size, size, elapsed / 1e6, generation.nanos() / 1e6, stats);
+            }
+        }
+
+        int count = 4000;
+        int size = 50;
+        List<WallGrid> grids = new ArrayList<>(count);
+        MazeGenerator generator = MazeAlgorithm.PRIM.create();
+        for (int i = 0; i < count; i++) {
+            WallGrid walls = new WallGrid(size, size);
+            generator.generate(walls, new Random(i));
+            grids.add(walls);
+        }
+        for (int threads : new int[] { 1, Runtime.getRuntime().availableProcessors() }) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            MazeStats.analyzeAll(grids, pool); // Warm up
+            long start = System.nanoTime();
+            MazeStats[] results = MazeStats.analyzeAll(grids, pool);
+            long elapsed = System.nanoTime() - start;
+            double meanDeadEnds = 0;
+            for (MazeStats stats : results) {
+                meanDeadEnds += stats.deadEnds() / (double) count;
+            }
+            System.out.printf("%,d mazes %dx%d threads=%d  %,.0f mazes/sec  mean dead ends %.1f%n",
+                    count, size, size, threads, count / (elapsed / 1e9), meanDeadEnds);
+            pool.shutdown();
+        }
+    }
+
+    // Searches for 20x20 mazes of increasingly unusual shape
+    private static void difficulty() {
+        int size = 20;
+        DifficultyProfile[] profiles = {
+                DifficultyProfile.any().withSolutionLength(60, 80),
+                DifficultyProfile.any().withSolutionLength(90, 400).withDeadEndRatio(0, 0.1),
+                DifficultyProfile.any().withSolutionLength(120, 400).withDeadEndRatio(0.05, 0.08).withJunctionRatio(0, 0.06),
+        };
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        try (DifficultySearch search = new DifficultySearch(MazeAlgorithm.RECURSIVE_BACKTRACKER::create, threads)) {
+            for (DifficultyProfile profile : profiles) {
+                int searches = 20;
+                int matched = 0;
+                for (int i = 0; i < searches; i++) {
+                    DifficultySearch.Result result = search.search(size, profile, i * 1_000_000L, 2_000_000_000L);
+                    if (result.isMatch()) {
+                        matched++;
+                        if (!profile.matches(result.stats())) {
+                            throw new IllegalStateException("Accepted a maze outside its profile: " + result.stats());
+                        }
+                        Maze again = new Maze(1f, size, result.seed(), MazeAlgorithm.RECURSIVE_BACKTRACKER.create());
+                        if (checksum(again.getWallGrid()) != checksum(result.walls())) {
+                            throw new IllegalStateException("Seed " + result.seed() + " doesn't reproduce its maze");
+                        }
+                    }
+                }
+                System.out.printf("%s%n    %d of %d matched; totals so far: %s%n", profile, matched, searches, search.getMetrics());
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    static long checksum(WallGrid walls) {
+        return checksum(walls.rows());
+    }
+
+    static long checksum(Iterator<WallRow> rows) {
+        long hash = 1125899906842597L;
+        while (rows.hasNext()) {
+            WallRow row = rows.next();
+            for (int col = 0; col < row.getWidth(); col++) {
+                int bits = (row.isWall(col, WallGrid.RIGHT) ? 1 : 0) | (row.isWall(col, WallGrid.BOTTOM) ? 2 : 0);
+                hash = 31 * hash + bits;
+            }
+        }
+        return hash;
+    }
+
+    // A perfect maze is a spanning tree: cells - 1 open walls, all cells reachable
+    static void checkPerfect(WallGrid walls) {
+        int cellCount = walls.getCellCount();
+        long open = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (!walls.isWall(cell, WallGrid.RIGHT)) open++;
+            if (!walls.isWall(cell, WallGrid.BOTTOM)) open++;
+        }
+
+        boolean[] seen = new boolean[cellCount];
+        int[] queue = new int[cellCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = 0;
+        seen[0] = true;
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int direction = 0; direction < 4; direction++) {
+                if (!walls.isWall(cell, direction)) {
+                    int neighbor = walls.neighborOf(cell, direction);
+                    if (!seen[neighbor]) {
+                        seen[neighbor] = true;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+
+        if (open != cellCount - 1 || tail != cellCount) {
+            throw new IllegalStateException("Not a perfect maze: " + open + " open walls, " + tail + " of " + cellCount + " cells reachable");
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
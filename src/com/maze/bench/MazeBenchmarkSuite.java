@@ -0,0 +1,249 @@
+package com.maze.bench;
+
+import com.maze.Maze;
+import com.maze.MazeAlgorithm;
+import com.maze.MazeGenerator;
+import com.maze.WallGrid;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Repeatable timings of the main Maze operations across board sizes, in the spirit of
+// a JMH average-time run: warm up iterations, then measured iterations of a calibrated
+// number of operations each.  Reports time and allocated bytes per operation, can
+// write the results as JSON and can compare them against an earlier JSON file.
+//
+//     java -Xmx4g com.maze.bench.MazeBenchmarkSuite [--sizes 10,64,256,1024,4096]
+//             [--filter name] [--warmup 3] [--iterations 5] [--json results.json]
+//             [--baseline baseline.json]
+//
+public class MazeBenchmarkSuite {
+    private static final int[] DEFAULT_SIZES = { 10, 64, 256, 1024, 4096 };
+    private static final long ITERATION_NANOS = 200_000_000L;
+    private static final double Z_999 = 3.29; // Two sided 99.9% interval, as JMH reports
+
+    // One operation of a benchmark.  The result is folded into sink so the JIT can't
+    // throw the work away.
+    private interface Operation {
+        long run();
+    }
+
+    private interface Setup {
+        Operation create(int size);
+    }
+
+    public record Result(String benchmark, int size, int samples, long opsPerSample,
+                         double nanosPerOp, double errorNanos, double bytesPerOp) {
+
+        String key() {
+            return benchmark + ":" + size;
+        }
+
+        // Locale.ROOT so the numbers always use '.' as the decimal point.  With a single
+        // iteration there is no error estimate; JMH writes that as the string "NaN".
+        String toJson() {
+            String error = Double.isNaN(errorNanos) ? "\"NaN\"" : String.format(Locale.ROOT, "%.3f", errorNanos);
+            return String.format(Locale.ROOT, "{\"benchmark\": \"%s\", \"mode\": \"avgt\", \"params\": {\"size\": \"%d\"}, "
+                            + "\"samples\": %d, \"opsPerSample\": %d, "
+                            + "\"primaryMetric\": {\"score\": %.3f, \"scoreError\": %s, \"scoreUnit\": \"ns/op\"}, "
+                            + "\"secondaryMetrics\": {\"gc.alloc.rate.norm\": {\"score\": %.1f, \"scoreUnit\": \"B/op\"}}}",
+                    benchmark, size, samples, opsPerSample, nanosPerOp, error, bytesPerOp);
+        }
+    }
+
+    private static long sink;
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = DEFAULT_SIZES;
+        String filter = null;
+        int warmup = 3;
+        int iterations = 5;
+        Path json = null;
+        Path baseline = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sizes":
+                    String[] parts = args[++i].split(",");
+                    sizes = new int[parts.length];
+                    for (int j = 0; j < parts.length; j++) {
+                        sizes[j] = Integer.parseInt(parts[j].trim());
+                    }
+                    break;
+                case "--filter":
+                    filter = args[++i];
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                case "--json":
+                    json = Path.of(args[++i]);
+                    break;
+                case "--baseline":
+                    baseline = Path.of(args[++i]);
+                    break;
+                default:
+                    System.out.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+
+        Map<String, Setup> benchmarks = benchmarks();
+        Map<String, Double> baselineScores = baseline != null ? readScores(baseline) : Map.of();
+        List<Result> results = new ArrayList<>();
+        for (Map.Entry<String, Setup> benchmark : benchmarks.entrySet()) {
+            if (filter != null && !benchmark.getKey().contains(filter)) {
+                continue;
+            }
+            for (int size : sizes) {
+                Result result = measure(benchmark.getKey(), size, benchmark.getValue().create(size), warmup, iterations);
+                results.add(result);
+                System.out.println(format(result, baselineScores.get(result.key())));
+            }
+        }
+
+        if (json != null) {
+            StringBuilder out = new StringBuilder("[\n");
+            for (int i = 0; i < results.size(); i++) {
+                out.append("  ").append(results.get(i).toJson()).append(i + 1 < results.size() ? ",\n" : "\n");
+            }
+            out.append("]\n");
+            Files.writeString(json, out);
+            System.out.println("Wrote " + results.size() + " results to " + json);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    // Insertion ordered so results come out in the same order every run
+    private static Map<String, Setup> benchmarks() {
+        Map<String, Setup> benchmarks = new LinkedHashMap<>();
+
+        benchmarks.put("mazeConstruction", size -> {
+            long[] seed = { 1 };
+            return () -> new Maze(1f, size, seed[0]++).getEndCell();
+        });
+
+        benchmarks.put("generateMaze", size -> {
+            MazeGenerator generator = MazeAlgorithm.PRIM.create();
+            WallGrid walls = new WallGrid(size, size);
+            long[] seed = { 1 };
+            return () -> generator.generate(walls, new Random(seed[0]++)).cells();
+        });
+
+        benchmarks.put("findShortestPath", size -> {
+            Maze maze = new Maze(1f, size, 7L);
+            int[] path = new int[size * size];
+            int end = maze.getEndCell();
+            return () -> maze.findShortestPath(0, end, path);
+        });
+
+        benchmarks.put("findShortestPathFromPlayer", size -> {
+            Maze maze = new Maze(1f, size, 7L);
+            maze.getGoalField();
+            Random random = new Random(3);
+            return () -> {
+                maze.setPlayerPosition(random.nextInt(size), random.nextInt(size));
+                return maze.findShortestPathFromPlayer().size();
+            };
+        });
+
+        benchmarks.put("movePlayer", size -> {
+            Maze maze = new Maze(1f, size, 7L);
+            Random random = new Random(3);
+            int[] dx = { 1, -1, 0, 0 };
+            int[] dy = { 0, 0, 1, -1 };
+            return () -> {
+                int direction = random.nextInt(4);
+                return maze.movePlayer(dx[direction], dy[direction]) ? 1 : 0;
+            };
+        });
+        return benchmarks;
+    }
+
+    private static Result measure(String name, int size, Operation operation, int warmup, int iterations) {
+        // Find how many operations fill an iteration, doubling from one
+        long ops = 1;
+        while (true) {
+            long elapsed = runBatch(operation, ops);
+            if (elapsed >= ITERATION_NANOS / 2 || ops >= 1L << 30) {
+                ops = Math.max(1, (long) (ops * (ITERATION_NANOS / (double) Math.max(elapsed, 1))));
+                break;
+            }
+            ops *= 2;
+        }
+
+        for (int i = 0; i < warmup; i++) {
+            runBatch(operation, ops);
+        }
+
+        double[] samples = new double[iterations];
+        long allocatedBefore = allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            samples[i] = runBatch(operation, ops) / (double) ops;
+        }
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        double mean = 0;
+        for (double sample : samples) {
+            mean += sample;
+        }
+        mean /= iterations;
+        double variance = 0;
+        for (double sample : samples) {
+            variance += (sample - mean) * (sample - mean);
+        }
+        double error = iterations > 1 ? Z_999 * Math.sqrt(variance / (iterations - 1)) / Math.sqrt(iterations) : Double.NaN;
+        return new Result(name, size, iterations, ops, mean, error, allocated / (double) (ops * iterations));
+    }
+
+    private static long runBatch(Operation operation, long ops) {
+        long result = 0;
+        long start = System.nanoTime();
+        for (long i = 0; i < ops; i++) {
+            result += operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += result;
+        return elapsed;
+    }
+
+    private static String format(Result result, Double baselineNanos) {
+        String line = String.format("%-28s size=%-5d %,16.1f +- %,12.1f ns/op  %,14.1f B/op",
+                result.benchmark(), result.size(), result.nanosPerOp(), result.errorNanos(), result.bytesPerOp());
+        if (baselineNanos != null) {
+            line += String.format("  %+7.1f%% vs baseline", (result.nanosPerOp() / baselineNanos - 1) * 100);
+        }
+        return line;
+    }
+
+    // Reads the ns/op scores back from a file written with --json
+    private static Map<String, Double> readScores(Path path) throws IOException {
+        Pattern pattern = Pattern.compile(
+                "\"benchmark\": \"([^\"]+)\".*?\"size\": \"(\\d+)\".*?\"primaryMetric\": \\{\"score\": ([0-9.eE+-]+)");
+        Map<String, Double> scores = new HashMap<>();
+        Matcher matcher = pattern.matcher(Files.readString(path));
+        while (matcher.find()) {
+            scores.put(matcher.group(1) + ":" + matcher.group(2), Double.parseDouble(matcher.group(3)));
+        }
+        return scores;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
@@ -31,6 +31,9 @@ import java.io.InputStream;
 import java.util.ArrayList;
 
 public class Font {
+    // Shared by all unrotated text, so glyphs from different strings can be drawn together
+    private static final Matrix4f IDENTITY = new Matrix4f();
+
     private FontTexture texture;
 
 
@@ -74,10 +77,7 @@ public class Font {
     }
 
     public ArrayList<Tuple7<Texture, Rectangle, Vector2f, Vector2f, Vector2f, Vector2f, Matrix4f>> drawText(String text, float left, float top, float width, float z) {
-        Matrix4f mIdentity = new Matrix4f();
-        mIdentity.identity();
-
-        return drawText(text, left, top, width, z, mIdentity);
+        return drawText(text, left, top, width, z, IDENTITY);
     }
 
     public ArrayList<Tuple7<Texture, Rectangle, Vector2f, Vector2f, Vector2f, Vector2f, Matrix4f>> drawText(String text, float left, float top, float width, float z, float rotation, Vector2f center) {
@@ -29,13 +29,15 @@ import org.joml.Vector3f;
 import org.lwjgl.glfw.GLFWErrorCallback;
 import org.lwjgl.glfw.GLFWVidMode;
 import org.lwjgl.opengl.GL;
+import org.lwjgl.system.MemoryUtil;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.lwjgl.glfw.Callbacks.*;
 import static org.lwjgl.glfw.GLFW.*;
-import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.opengl.GL33.*;
 import static org.lwjgl.system.MemoryUtil.NULL;
 
 public class Graphics2D  implements AutoCloseable {
@@ -45,18 +47,26 @@ public class Graphics2D  implements AutoCloseable {
     private final String title;
     private long window;
 
-    private final ArrayList<Tuple3<Rectangle, Color, Matrix4f>> rectanglesSolidColor = new ArrayList<>();
-    // TODO: Organize texture rectangles by texture to improve rendering efficiency
-    private final ArrayList<Tuple5<Texture, Rectangle, Rectangle, Matrix4f, Vector3f>> rectanglesTexture = new ArrayList<>();
-    private final ArrayList<Tuple8<Texture, Rectangle, Vector2f, Vector2f, Vector2f, Vector2f, Matrix4f, Vector3f>> textGlyphs = new ArrayList<>();
+    // Solid colored rectangles, textured rectangles and text glyphs, sorted by z and then
+    // texture before drawing
+    private final QuadBatch frameQuads = new QuadBatch();
+    // Where quads go when drawn: the frame, or a static layer being built
+    private QuadBatch quads = frameQuads;
+    private final ArrayList<StaticLayer> staticLayers = new ArrayList<>();
     private final ArrayList<Tuple3<Triangle, Color, Matrix4f>> trianglesSolidColor = new ArrayList<>();
     private final ArrayList<Tuple3<Vector3f, Vector3f, Color>> lines = new ArrayList<>();
 
     private Matrix4f mProjection;
     private Matrix4f mModelIdentity;
     private ShaderProgram shaderSolidColor;
-    private ShaderProgram shaderTexture;
-    private ShaderProgram shaderFont;
+    private ShaderProgram shaderQuad;
+
+    // One long-lived vertex stream per shader pipeline
+    private UnitQuad unitQuad;
+    private VertexStream streamSolidColor;
+    private VertexStream streamQuads;
+    private Texture whiteTexture;   // Sampled by solid colored quads
+    private int drawCalls;
 
     public Graphics2D(int width, int height, String title) {
         this.width = width;
@@ -78,7 +88,7 @@ public class Graphics2D  implements AutoCloseable {
         // bindings available for use.
         GL.createCapabilities();
 
-        var capabilities = GL.getCapabilities().OpenGL32;
+        var capabilities = GL.getCapabilities().OpenGL33;
 
         // Set the clear color
         glClearColor(clearColor.r, clearColor.g, clearColor.b, clearColor.a);
@@ -101,8 +111,15 @@ public class Graphics2D  implements AutoCloseable {
         this.mModelIdentity.identity();
 
         shaderSolidColor = createShader("resources/shaders/solid-color.vert", "resources/shaders/solid-color.frag");
-        shaderTexture = createShader("resources/shaders/texture.vert", "resources/shaders/texture.frag");
-        shaderFont = createShader("resources/shaders/font.vert", "resources/shaders/font.frag");
+        shaderQuad = createShader("resources/shaders/quad.vert", "resources/shaders/quad.frag");
+
+        unitQuad = new UnitQuad();
+        streamSolidColor = new VertexStream(new int[] { 3, 3 });    // position, color
+        streamQuads = new VertexStream(QuadBatch.ATTRIBUTE_SIZES, unitQuad);
+        ByteBuffer white = MemoryUtil.memAlloc(4);
+        white.put(0, (byte) 0xff).put(1, (byte) 0xff).put(2, (byte) 0xff).put(3, (byte) 0xff);
+        whiteTexture = new Texture(1, 1, white);
+        MemoryUtil.memFree(white);
 
         // OSX needs this to be done before doing anything else in order for the
         // font rendering to work correctly.
@@ -117,43 +134,51 @@ public class Graphics2D  implements AutoCloseable {
         return this.window;
     }
 
+    // Draw calls made by the most recently finished frame
+    public int getDrawCallCount() {
+        return drawCalls;
+    }
+
     public void begin() {
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
         glViewport(0, 0, width, height);
     }
 
     public void end() {
+        int calls = 0;
+
         // Draw the lines
-        Graphics2DUtils.BuffersColor buffersLinesColor = Graphics2DUtils.prepareLinesColorBuffers(lines);
-        Graphics2DUtils.renderLines(mProjection, shaderSolidColor, buffersLinesColor, lines);
+        calls += Graphics2DUtils.renderLines(mProjection, shaderSolidColor, streamSolidColor, lines);
 
         // Draw the solid colored triangles
-        Graphics2DUtils.BuffersColor buffersTrisSolidColor = Graphics2DUtils.prepareTrisSolidColorBuffers(trianglesSolidColor);
-        Graphics2DUtils.renderTriangles(mProjection, shaderSolidColor, buffersTrisSolidColor, trianglesSolidColor);
+        calls += Graphics2DUtils.renderTriangles(mProjection, shaderSolidColor, streamSolidColor, trianglesSolidColor);
 
-        // Draw the solid colored rectangles
-        Graphics2DUtils.BuffersColor buffersRectsSolidColor = Graphics2DUtils.prepareRectsSolidColorBuffers(rectanglesSolidColor);
-        Graphics2DUtils.renderRectangles(mProjection, shaderSolidColor, buffersRectsSolidColor, rectanglesSolidColor);
-
-        // Draw the textured rectangles
-        Graphics2DUtils.BuffersTexture buffersTexture = Graphics2DUtils.prepareRectsTextureBuffers(rectanglesTexture);
-        Graphics2DUtils.renderRectangles(mProjection, shaderTexture, buffersTexture, rectanglesTexture);
+        // Draw the static layers, ahead of the other quads; the depth test keeps anything
+        // with a higher z on top of them
+        for (var layer : staticLayers) {
+            calls += Graphics2DUtils.renderStaticLayer(mProjection, shaderQuad, layer);
+        }
 
-        // Draw the font rectangles
-        Graphics2DUtils.BuffersTexture buffersTextGlyphs = Graphics2DUtils.prepareTextGlyphBuffers(textGlyphs);
-        Graphics2DUtils.renderTextGlyphRectangles(mProjection, shaderFont, buffersTextGlyphs, textGlyphs);
+        // Draw the rectangles, textured or not, and the text glyphs as instances of one quad
+        frameQuads.sort();
+        calls += Graphics2DUtils.renderQuads(mProjection, shaderQuad, streamQuads, frameQuads);
 
         lines.clear();
         trianglesSolidColor.clear();
-        rectanglesSolidColor.clear();
-        rectanglesTexture.clear();
-        textGlyphs.clear();
+        staticLayers.clear();
+        frameQuads.clear();
+        drawCalls = calls;
 
         glfwSwapBuffers(window);
     }
 
     public void close() {
+        streamSolidColor.cleanup();
+        streamQuads.cleanup();
+        unitQuad.cleanup();
+        whiteTexture.cleanup();
         shaderSolidColor.cleanup();
+        shaderQuad.cleanup();
 
         glfwFreeCallbacks(window);
         glfwDestroyWindow(window);
@@ -163,12 +188,41 @@ public class Graphics2D  implements AutoCloseable {
         glfwSetErrorCallback(null).free();
     }
 
+    // --------------------------------------------------------------
+    //
+    // Everything drawn as a quad (rectangles, textures and text) between
+    // beginStaticLayer() and endStaticLayer() is uploaded to the GPU once
+    // as a StaticLayer instead of being drawn in the current frame.  Lines
+    // and triangles are not captured.
+    //
+    // --------------------------------------------------------------
+    public void beginStaticLayer() {
+        if (quads != frameQuads) {
+            throw new IllegalStateException("A static layer is already being built");
+        }
+        quads = new QuadBatch();
+    }
+
+    public StaticLayer endStaticLayer() {
+        if (quads == frameQuads) {
+            throw new IllegalStateException("No static layer is being built");
+        }
+        QuadBatch layerQuads = quads;
+        quads = frameQuads;
+        layerQuads.sort();
+        return new StaticLayer(layerQuads, unitQuad);
+    }
+
+    public void draw(StaticLayer layer) {
+        staticLayers.add(layer);
+    }
+
     public void draw(Vector3f pt1, Vector3f pt2, Color color) {
         lines.add(new Tuple3<>(pt1, pt2, color));
     }
 
     public void draw(Rectangle destination, Color color) {
-        rectanglesSolidColor.add(new Tuple3<>(destination, color, mModelIdentity));
+        quads.add(whiteTexture, destination, 0, 0, 1, 1, color, 0, 0, 0);
     }
 
     public void draw(Triangle triangle, Color color) {
@@ -184,154 +238,77 @@ public class Graphics2D  implements AutoCloseable {
     }
 
     public void draw(Rectangle destination, float rotation, Vector2f center, Color color) {
-        Matrix4f mRotation = new Matrix4f();
-        mRotation.translate(center.x, center.y, 0);
-        mRotation.rotateZ(rotation);
-        mRotation.translate(-center.x, -center.y, 0);
-        rectanglesSolidColor.add(new Tuple3<>(destination, color, mRotation));
+        quads.add(whiteTexture, destination, 0, 0, 1, 1, color, rotation, center.x, center.y);
     }
 
     public void draw(Texture texture, Rectangle destination, Color color) {
-        rectanglesTexture.add(new Tuple5<>(texture, destination, null, mModelIdentity, new Vector3f(color.r, color.g, color.b)));
+        quads.add(texture, destination, 0, 0, 1, 1, color, 0, 0, 0);
     }
 
     public void draw(Texture texture, Rectangle destination, float rotation, Vector2f center, Color color) {
-        Matrix4f mRotation = new Matrix4f();
-        mRotation.translate(center.x, center.y, 0);
-        mRotation.rotateZ(rotation);
-        mRotation.translate(-center.x, -center.y, 0);
-        rectanglesTexture.add(new Tuple5<>(texture, destination, null, mRotation, new Vector3f(color.r, color.g, color.b)));
+        quads.add(texture, destination, 0, 0, 1, 1, color, rotation, center.x, center.y);
     }
 
     public void draw(Texture texture, Rectangle destination, Rectangle subImage, float rotation, Vector2f center, Color color) {
-        Matrix4f mRotation = new Matrix4f();
-        mRotation.translate(center.x, center.y, 0);
-        mRotation.rotateZ(rotation);
-        mRotation.translate(-center.x, -center.y, 0);
-        rectanglesTexture.add(new Tuple5<>(texture, destination, subImage, mRotation, new Vector3f(color.r, color.g, color.b)));
+        // subImage is in pixels; convert it to texture coords for correct rendering
+        float u0 = subImage.left / texture.getWidth();
+        float v0 = subImage.top / texture.getHeight();
+        float u1 = (subImage.left + subImage.width) / texture.getWidth();
+        float v1 = (subImage.top + subImage.height) / texture.getHeight();
+        quads.add(texture, destination, u0, v0, u1, v1, color, rotation, center.x, center.y);
+    }
+
+    public void draw(TextureAtlas.Region region, Rectangle destination, Color color) {
+        quads.add(region.page(), destination, region.u0(), region.v0(), region.u1(), region.v1(), color, 0, 0, 0);
+    }
+
+    public void draw(TextureAtlas.Region region, Rectangle destination, float rotation, Vector2f center, Color color) {
+        quads.add(region.page(), destination, region.u0(), region.v0(), region.u1(), region.v1(), color, rotation, center.x, center.y);
     }
 
     public void drawTextByWidth(Font font, String text, float left, float top, float width, float z, Color color) {
-        var tuples = font.drawText(text, left, top, width, z);
-        for (var tuple : tuples) {
-            textGlyphs.add(new Tuple8<>(
-                    tuple.item1(),
-                    tuple.item2(),
-                    tuple.item3(),
-                    tuple.item4(),
-                    tuple.item5(),
-                    tuple.item6(),
-                    tuple.item7(), // Rotation
-                    new Vector3f(color.r, color.g, color.b)));
-        }
+        addGlyphs(font.drawText(text, left, top, width, z), 0, 0, 0, color);
     }
 
     public void drawTextByWidth(Font font, String text, float left, float top, float width, Color color) {
-        var tuples = font.drawText(text, left, top,  width, 0.0f);
-        for (var tuple : tuples) {
-            textGlyphs.add(new Tuple8<>(
-                    tuple.item1(),
-                    tuple.item2(),
-                    tuple.item3(),
-                    tuple.item4(),
-                    tuple.item5(),
-                    tuple.item6(),
-                    tuple.item7(), // Rotation
-                    new Vector3f(color.r, color.g, color.b)));
-        }
+        addGlyphs(font.drawText(text, left, top, width, 0.0f), 0, 0, 0, color);
     }
 
     public void drawTextByWidth(Font font, String text, float left, float top, float width, float z, float rotation, Vector2f center, Color color) {
-        var tuples = font.drawText(text, left, top, width, z, rotation, center);
-        for (var tuple : tuples) {
-            textGlyphs.add(new Tuple8<>(
-                    tuple.item1(),
-                    tuple.item2(),
-                    tuple.item3(),
-                    tuple.item4(),
-                    tuple.item5(),
-                    tuple.item6(),
-                    tuple.item7(), // Rotation
-                    new Vector3f(color.r, color.g, color.b)));
-        }
+        addGlyphs(font.drawText(text, left, top, width, z), rotation, center.x, center.y, color);
     }
 
     public void drawTextByWidth(Font font, String text, float left, float top, float width, float rotation, Vector2f center, Color color) {
-        var tuples = font.drawText(text, left, top, width, 0.0f, rotation, center);
-        for (var tuple : tuples) {
-            textGlyphs.add(new Tuple8<>(
-                    tuple.item1(),
-                    tuple.item2(),
-                    tuple.item3(),
-                    tuple.item4(),
-                    tuple.item5(),
-                    tuple.item6(),
-                    tuple.item7(), // Rotation
-                    new Vector3f(color.r, color.g, color.b)));
-        }
+        addGlyphs(font.drawText(text, left, top, width, 0.0f), rotation, center.x, center.y, color);
     }
 
     public void drawTextByHeight(Font font, String text, float left, float top, float height, float z, Color color) {
         float width = font.measureTextWidth(text, height);
-        var tuples = font.drawText(text, left, top, width, z);
-        for (var tuple : tuples) {
-            textGlyphs.add(new Tuple8<>(
-                    tuple.item1(),
-                    tuple.item2(),
-                    tuple.item3(),
-                    tuple.item4(),
-                    tuple.item5(),
-                    tuple.item6(),
-                    tuple.item7(), // Rotation
-                    new Vector3f(color.r, color.g, color.b)));
-        }
+        addGlyphs(font.drawText(text, left, top, width, z), 0, 0, 0, color);
     }
 
     public void drawTextByHeight(Font font, String text, float left, float top, float height, Color color) {
         float width = font.measureTextWidth(text, height);
-        var tuples = font.drawText(text, left, top, width, 0.0f);
-        for (var tuple : tuples) {
-            textGlyphs.add(new Tuple8<>(
-                    tuple.item1(),
-                    tuple.item2(),
-                    tuple.item3(),
-                    tuple.item4(),
-                    tuple.item5(),
-                    tuple.item6(),
-                    tuple.item7(), // Rotation
-                    new Vector3f(color.r, color.g, color.b)));
-        }
+        addGlyphs(font.drawText(text, left, top, width, 0.0f), 0, 0, 0, color);
     }
 
     public void drawTextByHeight(Font font, String text, float left, float top, float height, float z, float rotation, Vector2f center, Color color) {
         float width = font.measureTextWidth(text, height);
-        var tuples = font.drawText(text, left, top, width, z, rotation, center);
-        for (var tuple : tuples) {
-            textGlyphs.add(new Tuple8<>(
-                    tuple.item1(),
-                    tuple.item2(),
-                    tuple.item3(),
-                    tuple.item4(),
-                    tuple.item5(),
-                    tuple.item6(),
-                    tuple.item7(), // Rotation
-                    new Vector3f(color.r, color.g, color.b)));
-        }
+        addGlyphs(font.drawText(text, left, top, width, z), rotation, center.x, center.y, color);
     }
 
     public void drawTextByHeight(Font font, String text, float left, float top, float height, float rotation, Vector2f center, Color color) {
         float width = font.measureTextWidth(text, height);
-        var tuples = font.drawText(text, left, top, width, 0.0f, rotation, center);
-        for (var tuple : tuples) {
-            textGlyphs.add(new Tuple8<>(
-                    tuple.item1(),
-                    tuple.item2(),
-                    tuple.item3(),
-                    tuple.item4(),
-                    tuple.item5(),
-                    tuple.item6(),
-                    tuple.item7(), // Rotation
-                    new Vector3f(color.r, color.g, color.b)));
+        addGlyphs(font.drawText(text, left, top, width, 0.0f), rotation, center.x, center.y, color);
+    }
+
+    // Glyph texture coords are axis aligned, so the top left (item3) and bottom
+    // right (item5) corners are all the quad needs.  Rotation is applied per glyph
+    // around the shared center, which turns the string as a whole.
+    private void addGlyphs(ArrayList<Tuple7<Texture, Rectangle, Vector2f, Vector2f, Vector2f, Vector2f, Matrix4f>> glyphs, float rotation, float centerX, float centerY, Color color) {
+        for (var glyph : glyphs) {
+            quads.add(glyph.item1(), glyph.item2(), glyph.item3().x, glyph.item3().y, glyph.item5().x, glyph.item5().y,
+                    color, rotation, centerX, centerY);
         }
     }
 
@@ -351,7 +328,7 @@ public class Graphics2D  implements AutoCloseable {
         glfwWindowHint(GLFW_RESIZABLE, GLFW_FALSE); // the window will not be resizable
 
         glfwWindowHint(GLFW_CONTEXT_VERSION_MAJOR, 3);
-        glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 2);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 3);
         glfwWindowHint(GLFW_OPENGL_PROFILE, GLFW_OPENGL_CORE_PROFILE);
         glfwWindowHint(GLFW_OPENGL_FORWARD_COMPAT, GLFW_TRUE);
 
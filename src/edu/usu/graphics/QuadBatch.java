@@ -0,0 +1,173 @@
+/*
+Copyright (c) 2024 James Dean Mathias
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package edu.usu.graphics;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+// --------------------------------------------------------------
+//
+// The quads submitted in a frame, kept as one flat array of instance data
+// in the layout the quad shader reads, plus the texture each one samples.
+// Submitting a quad writes 15 floats and allocates nothing; the whole
+// array is copied to the GPU in one go at the end of the frame.
+//
+// Before that the quads are sorted back to front by z, then by texture, so
+// each texture's quads within a layer are contiguous and draw together.  The
+// sort is stable, so quads with the same z and texture keep their order;
+// overlapping quads on different textures need different z values to stay
+// in the order they were drawn.
+//
+// --------------------------------------------------------------
+class QuadBatch {
+    // left, top, width, height | u0, v0, u1, v1 | r, g, b | rotation, center x, center y, z
+    public static final int[] ATTRIBUTE_SIZES = { 4, 4, 3, 4 };
+    public static final int FLOATS_PER_QUAD = 15;
+
+    private float[] data = new float[1024 * FLOATS_PER_QUAD];
+    private Texture[] textures = new Texture[1024];
+    private int count;
+
+    // Scratch space for sorting, grown along with the arrays above
+    private float[] sortedData = new float[0];
+    private Texture[] sortedTextures = new Texture[0];
+    private long[] keys = new long[0];
+    private int[] order = new int[0];
+    private int[] merged = new int[0];
+
+    void add(Texture texture, Rectangle destination, float u0, float v0, float u1, float v1, Color color,
+             float rotation, float centerX, float centerY) {
+        if (count == textures.length) {
+            textures = Arrays.copyOf(textures, count * 2);
+            data = Arrays.copyOf(data, count * 2 * FLOATS_PER_QUAD);
+        }
+        textures[count] = texture;
+
+        int i = count * FLOATS_PER_QUAD;
+        data[i] = destination.left;
+        data[i + 1] = destination.top;
+        data[i + 2] = destination.width;
+        data[i + 3] = destination.height;
+        data[i + 4] = u0;
+        data[i + 5] = v0;
+        data[i + 6] = u1;
+        data[i + 7] = v1;
+        data[i + 8] = color.r;
+        data[i + 9] = color.g;
+        data[i + 10] = color.b;
+        data[i + 11] = rotation;
+        data[i + 12] = centerX;
+        data[i + 13] = centerY;
+        data[i + 14] = destination.z;
+        count++;
+    }
+
+    void sort() {
+        if (count < 2) {
+            return;
+        }
+        if (keys.length < count) {
+            keys = new long[textures.length];
+            order = new int[textures.length];
+            merged = new int[textures.length];
+        }
+
+        boolean sorted = true;
+        for (int q = 0; q < count; q++) {
+            keys[q] = sortKey(data[q * FLOATS_PER_QUAD + 14], textures[q]);
+            order[q] = q;
+            sorted &= q == 0 || keys[q - 1] <= keys[q];
+        }
+        if (sorted) {
+            return;
+        }
+
+        // Bottom up merge sort of the quad numbers by key
+        int[] from = order;
+        int[] to = merged;
+        for (int width = 1; width < count; width *= 2) {
+            for (int start = 0; start < count; start += 2 * width) {
+                int middle = Math.min(start + width, count);
+                int end = Math.min(start + 2 * width, count);
+                int left = start;
+                int right = middle;
+                for (int k = start; k < end; k++) {
+                    if (left < middle && (right >= end || keys[from[left]] <= keys[from[right]])) {
+                        to[k] = from[left++];
+                    } else {
+                        to[k] = from[right++];
+                    }
+                }
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+
+        // Move the quads into sorted order and swap the arrays
+        if (sortedData.length < data.length) {
+            sortedData = new float[data.length];
+            sortedTextures = new Texture[textures.length];
+        }
+        for (int q = 0; q < count; q++) {
+            System.arraycopy(data, from[q] * FLOATS_PER_QUAD, sortedData, q * FLOATS_PER_QUAD, FLOATS_PER_QUAD);
+            sortedTextures[q] = textures[from[q]];
+        }
+        float[] swapData = data;
+        data = sortedData;
+        sortedData = swapData;
+        Texture[] swapTextures = textures;
+        textures = sortedTextures;
+        sortedTextures = swapTextures;
+        Arrays.fill(sortedTextures, 0, count, null);
+    }
+
+    int size() {
+        return count;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    Texture getTexture(int quad) {
+        return textures[quad];
+    }
+
+    void write(FloatBuffer out) {
+        out.put(data, 0, count * FLOATS_PER_QUAD);
+    }
+
+    // z in the high half, as an int that orders the same way as the float, and the
+    // texture in the low half
+    private static long sortKey(float z, Texture texture) {
+        int bits = Float.floatToIntBits(z);
+        bits ^= (bits >> 31) & 0x7fffffff;
+        return ((long) bits << 32) | (texture.getId() & 0xffffffffL);
+    }
+
+    void clear() {
+        // Drop the texture references so nothing is kept alive past the frame
+        Arrays.fill(textures, 0, count, null);
+        count = 0;
+    }
+}
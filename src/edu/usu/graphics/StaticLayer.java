@@ -0,0 +1,97 @@
+/*
+Copyright (c) 2024 James Dean Mathias
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package edu.usu.graphics;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL32.*;
+
+// --------------------------------------------------------------
+//
+// Quads uploaded to the GPU once and drawn as often as needed, for things
+// like maze walls that don't change from frame to frame.  Drawing a layer
+// costs the same no matter how many quads it holds: one draw call per
+// texture and no per-frame copying.  Made with Graphics2D.beginStaticLayer()
+// and endStaticLayer(), drawn with Graphics2D.draw(StaticLayer), and must
+// be cleaned up when no longer needed.
+//
+// --------------------------------------------------------------
+public class StaticLayer {
+    private final VertexStream stream;
+    private final int quadCount;
+    // Run r covers quads [runStarts[r], runStarts[r + 1]) and samples runTextures[r]
+    private final Texture[] runTextures;
+    private final int[] runStarts;
+
+    // quads must already be sorted
+    StaticLayer(QuadBatch quads, UnitQuad unitQuad) {
+        this.quadCount = quads.size();
+        this.stream = new VertexStream(QuadBatch.ATTRIBUTE_SIZES, unitQuad, Math.max(1, quadCount), GL_STATIC_DRAW);
+
+        int runs = 0;
+        for (int q = 0; q < quadCount; q++) {
+            if (q == 0 || quads.getTexture(q - 1) != quads.getTexture(q)) {
+                runs++;
+            }
+        }
+        runTextures = new Texture[runs];
+        runStarts = new int[runs + 1];
+        int run = 0;
+        for (int q = 0; q < quadCount; q++) {
+            if (q == 0 || quads.getTexture(q - 1) != quads.getTexture(q)) {
+                runTextures[run] = quads.getTexture(q);
+                runStarts[run++] = q;
+            }
+        }
+        runStarts[runs] = quadCount;
+
+        if (quadCount > 0) {
+            FloatBuffer instances = stream.map(quadCount);
+            quads.write(instances);
+            stream.unmap();
+        }
+    }
+
+    public int getQuadCount() {
+        return quadCount;
+    }
+
+    public void cleanup() {
+        stream.cleanup();
+    }
+
+    VertexStream getStream() {
+        return stream;
+    }
+
+    int getRunCount() {
+        return runTextures.length;
+    }
+
+    Texture getRunTexture(int run) {
+        return runTextures[run];
+    }
+
+    int getRunStart(int run) {
+        return runStarts[run];
+    }
+}
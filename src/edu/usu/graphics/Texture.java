@@ -81,6 +81,17 @@ public class Texture {
         }
     }
 
+    // --------------------------------------------------------------
+    //
+    // Builds a texture from raw RGBA pixels, four bytes per pixel, row by row.
+    //
+    // --------------------------------------------------------------
+    public Texture(int width, int height, ByteBuffer pixels) {
+        this.width = width;
+        this.height = height;
+        this.textureId = createTexture(pixels);
+    }
+
     public int getWidth() {
         return this.width;
     }
@@ -89,6 +100,17 @@ public class Texture {
         return this.height;
     }
 
+    int getId() {
+        return textureId;
+    }
+
+    // Stops sampling at mip level n, for atlas pages whose padding only keeps
+    // images apart up to that level
+    void setMaxMipLevel(int level) {
+        glBindTexture(GL_TEXTURE_2D, textureId);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAX_LEVEL, level);
+    }
+
     public void bind() {
         glBindTexture(GL_TEXTURE_2D, textureId);
     }
@@ -0,0 +1,237 @@
+/*
+Copyright (c) 2024 James Dean Mathias
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package edu.usu.graphics;
+
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.lwjgl.stb.STBImage.*;
+import static org.lwjgl.stb.STBImageResize.*;
+
+// --------------------------------------------------------------
+//
+// Packs a set of images onto one or a few large textures at startup, so
+// sprites that are drawn together share a texture and can go out in one
+// draw call.  Each image is scaled down to maxImageSize on its longer side
+// (sprites are drawn far smaller than their source files), then placed on
+// shelves, tallest first.
+//
+// Pages are mipmapped, and a texel of mip level n averages a 2^n block of
+// page pixels, so a sprite drawn small samples well past its own edge.
+// Each image therefore starts on a 2^MAX_MIP_LEVEL pixel boundary, is
+// rounded up to a whole number of those blocks and gets another block of
+// border on every side, all filled by repeating its edge pixels.  Through
+// level MAX_MIP_LEVEL no texel mixes two images, and the pages stop there;
+// at 256 pixels, that covers sprites drawn down to about 16 pixels.
+//
+// --------------------------------------------------------------
+public class TextureAtlas {
+    static final int MAX_MIP_LEVEL = 4;
+    private static final int BLOCK = 1 << MAX_MIP_LEVEL;
+    private static final int PADDING = BLOCK;
+
+    // Where an image ended up: the page texture and its texture coords on that page
+    public record Region(Texture page, float u0, float v0, float u1, float v1) {
+    }
+
+    private final List<Texture> pages = new ArrayList<>();
+    private final Map<String, Region> regions = new HashMap<>();
+
+    public TextureAtlas(int pageSize, int maxImageSize, String... imagePaths) {
+        int count = imagePaths.length;
+        ByteBuffer[] pixels = new ByteBuffer[count];
+        int[] widths = new int[count];
+        int[] heights = new int[count];
+        for (int i = 0; i < count; i++) {
+            pixels[i] = loadScaled(imagePaths[i], maxImageSize, i, widths, heights);
+        }
+
+        int[] placements = pack(widths, heights, pageSize);
+        int pageCount = 0;
+        for (int i = 0; i < count; i++) {
+            pageCount = Math.max(pageCount, placements[i * 3] + 1);
+        }
+
+        for (int page = 0; page < pageCount; page++) {
+            // Only as tall as the lowest image on it needs
+            int pageHeight = 1;
+            for (int i = 0; i < count; i++) {
+                if (placements[i * 3] == page) {
+                    pageHeight = Math.max(pageHeight, placements[i * 3 + 2] + alignUp(heights[i]) + PADDING);
+                }
+            }
+
+            ByteBuffer pagePixels = MemoryUtil.memCalloc(pageSize * pageHeight * 4);
+            for (int i = 0; i < count; i++) {
+                if (placements[i * 3] == page) {
+                    blit(pixels[i], widths[i], heights[i], pagePixels, pageSize, placements[i * 3 + 1], placements[i * 3 + 2]);
+                }
+            }
+            Texture texture = new Texture(pageSize, pageHeight, pagePixels);
+            texture.setMaxMipLevel(MAX_MIP_LEVEL);
+            MemoryUtil.memFree(pagePixels);
+            pages.add(texture);
+
+            for (int i = 0; i < count; i++) {
+                if (placements[i * 3] == page) {
+                    float x = placements[i * 3 + 1];
+                    float y = placements[i * 3 + 2];
+                    regions.put(imagePaths[i], new Region(texture,
+                            x / pageSize, y / pageHeight,
+                            (x + widths[i]) / pageSize, (y + heights[i]) / pageHeight));
+                }
+            }
+        }
+
+        for (ByteBuffer buffer : pixels) {
+            MemoryUtil.memFree(buffer);
+        }
+    }
+
+    public Region get(String imagePath) {
+        Region region = regions.get(imagePath);
+        if (region == null) {
+            throw new IllegalArgumentException("Image [" + imagePath + "] is not in the atlas");
+        }
+        return region;
+    }
+
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    public void cleanup() {
+        for (Texture page : pages) {
+            page.cleanup();
+        }
+    }
+
+    // --------------------------------------------------------------
+    //
+    // Shelf packing, tallest image first.  Returns (page, x, y) for each
+    // image, the position of its top left pixel inside the padding.  Every
+    // cell is a whole number of blocks, so every x and y is block aligned.
+    //
+    // --------------------------------------------------------------
+    static int[] pack(int[] widths, int[] heights, int pageSize) {
+        if (pageSize % BLOCK != 0) {
+            throw new IllegalArgumentException("Page size " + pageSize + " isn't a multiple of " + BLOCK);
+        }
+        int count = widths.length;
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            if (alignUp(widths[i]) + 2 * PADDING > pageSize || alignUp(heights[i]) + 2 * PADDING > pageSize) {
+                throw new IllegalArgumentException("Image of " + widths[i] + "x" + heights[i] + " doesn't fit a " + pageSize + " page");
+            }
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> heights[b] - heights[a]);
+
+        int[] placements = new int[count * 3];
+        int page = 0;
+        int x = 0;
+        int shelfTop = 0;
+        int shelfHeight = 0;
+        for (int i : order) {
+            int cellWidth = alignUp(widths[i]) + 2 * PADDING;
+            int cellHeight = alignUp(heights[i]) + 2 * PADDING;
+            if (x + cellWidth > pageSize) {
+                // Start a new shelf below the current one
+                shelfTop += shelfHeight;
+                x = 0;
+                shelfHeight = 0;
+            }
+            if (shelfTop + cellHeight > pageSize) {
+                page++;
+                shelfTop = 0;
+                x = 0;
+                shelfHeight = 0;
+            }
+            placements[i * 3] = page;
+            placements[i * 3 + 1] = x + PADDING;
+            placements[i * 3 + 2] = shelfTop + PADDING;
+            x += cellWidth;
+            shelfHeight = Math.max(shelfHeight, cellHeight);
+        }
+        return placements;
+    }
+
+    // Copies an image onto a page, repeating its edge pixels out to the edges
+    // of its cell
+    static void blit(ByteBuffer image, int width, int height, ByteBuffer page, int pageWidth, int left, int top) {
+        IntBuffer source = image.asIntBuffer();
+        IntBuffer target = page.asIntBuffer();
+        for (int row = -PADDING; row < alignUp(height) + PADDING; row++) {
+            int sourceRow = Math.min(Math.max(row, 0), height - 1) * width;
+            int targetRow = (top + row) * pageWidth + left;
+            for (int col = -PADDING; col < alignUp(width) + PADDING; col++) {
+                int sourceCol = Math.min(Math.max(col, 0), width - 1);
+                target.put(targetRow + col, source.get(sourceRow + sourceCol));
+            }
+        }
+    }
+
+    private static int alignUp(int size) {
+        return (size + BLOCK - 1) & -BLOCK;
+    }
+
+    // Loads an image as RGBA pixels (freed with memFree), scaled down if it is larger
+    // than maxImageSize, and records its final size
+    private static ByteBuffer loadScaled(String path, int maxImageSize, int index, int[] widths, int[] heights) {
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer w = stack.mallocInt(1);
+            IntBuffer h = stack.mallocInt(1);
+            IntBuffer channels = stack.mallocInt(1);
+
+            ByteBuffer loaded = stbi_load(path, w, h, channels, 4);
+            if (loaded == null) {
+                throw new RuntimeException("Image file [" + path + "] not loaded: " + stbi_failure_reason());
+            }
+
+            int width = w.get(0);
+            int height = h.get(0);
+            float scale = Math.min(1.0f, maxImageSize / (float) Math.max(width, height));
+            int scaledWidth = Math.max(1, Math.round(width * scale));
+            int scaledHeight = Math.max(1, Math.round(height * scale));
+
+            ByteBuffer pixels = MemoryUtil.memAlloc(scaledWidth * scaledHeight * 4);
+            if (scale < 1.0f) {
+                stbir_resize_uint8_linear(loaded, width, height, 0, pixels, scaledWidth, scaledHeight, 0, STBIR_RGBA);
+            } else {
+                MemoryUtil.memCopy(loaded, pixels);
+            }
+            stbi_image_free(loaded);
+
+            widths[index] = scaledWidth;
+            heights[index] = scaledHeight;
+            return pixels;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+Copyright (c) 2024 James Dean Mathias
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package edu.usu.graphics;
+
+import static org.lwjgl.opengl.GL32.*;
+
+// --------------------------------------------------------------
+//
+// The one quad every instanced quad is drawn from: corners (0, 0) to
+// (1, 1) and the six indices of its two triangles.  It is uploaded once
+// and shared by every vertex array that draws quads; the vertex shader
+// stretches it over each instance's rectangle.
+//
+// --------------------------------------------------------------
+class UnitQuad {
+    public static final int INDEX_COUNT = 6;
+
+    private final int vboId;
+    private final int iboId;
+
+    UnitQuad() {
+        vboId = glGenBuffers();
+        glBindBuffer(GL_ARRAY_BUFFER, vboId);
+        glBufferData(GL_ARRAY_BUFFER, new float[] { 0, 0, 1, 0, 1, 1, 0, 1 }, GL_STATIC_DRAW);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+
+        // Upload through the copy target so no vertex array's element binding changes
+        iboId = glGenBuffers();
+        glBindBuffer(GL_COPY_WRITE_BUFFER, iboId);
+        glBufferData(GL_COPY_WRITE_BUFFER, new int[] { 0, 1, 2, 0, 2, 3 }, GL_STATIC_DRAW);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+    }
+
+    // Feeds the corners to the given attribute location of the currently bound
+    // vertex array and makes the indices its element buffer
+    void attach(int location) {
+        glBindBuffer(GL_ARRAY_BUFFER, vboId);
+        glEnableVertexAttribArray(location);
+        glVertexAttribPointer(location, 2, GL_FLOAT, false, 0, 0);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, iboId);
+    }
+
+    void cleanup() {
+        glDeleteBuffers(vboId);
+        glDeleteBuffers(iboId);
+    }
+}
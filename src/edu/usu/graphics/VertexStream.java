@@ -0,0 +1,164 @@
+/*
+Copyright (c) 2024 James Dean Mathias
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package edu.usu.graphics;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL33.*;
+
+// --------------------------------------------------------------
+//
+// A long-lived vertex array with one interleaved buffer that is streamed
+// into every frame.  Each batch is appended after the previous one; when a
+// batch doesn't fit in what is left, the buffer is orphaned and writing
+// starts over at the front.  Orphaning lets the driver hand back fresh
+// storage instead of waiting on draws still reading the old data, which is
+// also what makes the unsynchronized map safe: a range is never written
+// twice between orphanings.
+//
+// An instanced stream holds one element per quad instead of one per vertex,
+// with the unit quad supplying the corners.  A stream that is sized exactly
+// and mapped only once serves as retained geometry.
+//
+// --------------------------------------------------------------
+class VertexStream {
+    private static final int INITIAL_ELEMENTS = 4096;
+
+    private final int vaoId;
+    private final int vboId;
+    private final int[] attributeSizes;
+    private final int firstLocation;
+    private final int stride;
+    private final int usage;
+    private int capacity;   // In elements
+    private int head;
+    private int batchStart;
+
+    // One element per vertex.  attributeSizes gives the float count of each
+    // attribute, in location order from 0.
+    VertexStream(int[] attributeSizes) {
+        this(attributeSizes, null);
+    }
+
+    // One element per quad instance, with the corners of quad at location 0 and
+    // the instance attributes from location 1
+    VertexStream(int[] attributeSizes, UnitQuad quad) {
+        this(attributeSizes, quad, INITIAL_ELEMENTS, GL_STREAM_DRAW);
+    }
+
+    // usage is the buffer usage hint, e.g. GL_STATIC_DRAW for data mapped once
+    VertexStream(int[] attributeSizes, UnitQuad quad, int capacity, int usage) {
+        this.attributeSizes = attributeSizes;
+        this.firstLocation = quad == null ? 0 : 1;
+        int floats = 0;
+        for (int size : attributeSizes) {
+            floats += size;
+        }
+        this.stride = floats * Float.BYTES;
+        this.usage = usage;
+        this.capacity = capacity;
+
+        vaoId = glGenVertexArrays();
+        glBindVertexArray(vaoId);
+        if (quad != null) {
+            quad.attach(0);
+        }
+
+        vboId = glGenBuffers();
+        glBindBuffer(GL_ARRAY_BUFFER, vboId);
+        glBufferData(GL_ARRAY_BUFFER, (long) capacity * stride, usage);
+        pointAttributes(0);
+        for (int i = 0; i < attributeSizes.length; i++) {
+            glEnableVertexAttribArray(firstLocation + i);
+            if (quad != null) {
+                glVertexAttribDivisor(firstLocation + i, 1);
+            }
+        }
+
+        glBindVertexArray(0);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    // Returns space for the given number of elements, to be filled and then
+    // handed back with unmap() before drawing
+    FloatBuffer map(int elements) {
+        glBindBuffer(GL_ARRAY_BUFFER, vboId);
+        if (elements > capacity) {
+            while (capacity < elements) {
+                capacity *= 2;
+            }
+            glBufferData(GL_ARRAY_BUFFER, (long) capacity * stride, usage);
+            head = 0;
+        } else if (head + elements > capacity) {
+            // Orphan the old storage rather than wait for it
+            glBufferData(GL_ARRAY_BUFFER, (long) capacity * stride, usage);
+            head = 0;
+        }
+
+        batchStart = head;
+        head += elements;
+        return glMapBufferRange(GL_ARRAY_BUFFER, (long) batchStart * stride, (long) elements * stride,
+                GL_MAP_WRITE_BIT | GL_MAP_INVALIDATE_RANGE_BIT | GL_MAP_UNSYNCHRONIZED_BIT).asFloatBuffer();
+    }
+
+    void unmap() {
+        // A false return means the storage was lost (e.g. a mode switch); the
+        // batch just draws garbage for one frame, so there's nothing to recover
+        glUnmapBuffer(GL_ARRAY_BUFFER);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    // Draws vertices [first, first + count) of the most recently mapped batch
+    void drawArrays(int mode, int first, int count) {
+        glDrawArrays(mode, batchStart + first, count);
+    }
+
+    // Draws instances [first, first + count) of the most recently mapped batch.
+    // There is no base instance before GL 4.2, so the instance attributes are
+    // pointed at the first one instead.
+    void drawInstancedQuads(int first, int count) {
+        glBindBuffer(GL_ARRAY_BUFFER, vboId);
+        pointAttributes((long) (batchStart + first) * stride);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glDrawElementsInstanced(GL_TRIANGLES, UnitQuad.INDEX_COUNT, GL_UNSIGNED_INT, 0, count);
+    }
+
+    void bind() {
+        glBindVertexArray(vaoId);
+    }
+
+    void unbind() {
+        glBindVertexArray(0);
+    }
+
+    void cleanup() {
+        glDeleteBuffers(vboId);
+        glDeleteVertexArrays(vaoId);
+    }
+
+    private void pointAttributes(long offset) {
+        for (int i = 0; i < attributeSizes.length; i++) {
+            glVertexAttribPointer(firstLocation + i, attributeSizes[i], GL_FLOAT, false, stride, offset);
+            offset += attributeSizes[i] * Float.BYTES;
+        }
+    }
+}